@@ -1,149 +1,119 @@
 import java.util.*;
 
 public class AStarSearch {
+
+    public interface Heuristic {
+        double estimate(CompactGraph graph, int node, int goal);
+    }
+
+    public static final Heuristic NONE = (graph, node, goal) -> 0;
+
+    // The original estimate; it compares node numbers, so it can overestimate and return longer routes.
+    public static final Heuristic NODE_INDEX = (graph, node, goal) -> Math.abs(graph.node(node).n - graph.node(goal).n) * 100;
+
+    // Straight-line distance scaled to the edge weights; admissible and consistent on any graph.
+    public static final Heuristic EUCLIDEAN = (graph, node, goal) -> {
+        double scale = graph.coordinateScale();
+        return scale == 0 ? 0 : scale * graph.straightLineDistance(node, goal);
+    };
     
-    public static class AStarNode implements Comparable<AStarNode> {
-        Nodes node;
-        double gCost;
-        double hCost;
-        double fCost;
-        AStarNode parent;
-        
-        public AStarNode(Nodes node, double gCost, double hCost, AStarNode parent) {
-            this.node = node;
-            this.gCost = gCost;
-            this.hCost = hCost;
-            this.fCost = gCost + hCost;
-            this.parent = parent;
+    public static PathResult aStarSearch(Graph graph, Nodes start, Nodes end) {
+        CompactGraph snapshot = graph.snapshot();
+        int startIndex = snapshot.indexOf(start);
+        int endIndex = snapshot.indexOf(end);
+        if (startIndex == -1 || endIndex == -1) {
+            return PathResult.notFound(snapshot, 0);
         }
-        
-        @Override
-        public int compareTo(AStarNode other) {
-            return Double.compare(this.fCost, other.fCost);
-        }
-        
-        @Override
-        public boolean equals(Object obj) {
-            if (this == obj) return true;
-            if (obj == null || getClass() != obj.getClass()) return false;
-            AStarNode aStarNode = (AStarNode) obj;
-            return Objects.equals(node, aStarNode.node);
-        }
-        
-        @Override
-        public int hashCode() {
-            return Objects.hash(node);
+        return aStarSearch(snapshot, startIndex, endIndex);
+    }
+
+    public static PathResult aStarSearch(CompactGraph graph, int start, int end) {
+        return aStarSearch(graph, start, end, EUCLIDEAN);
+    }
+
+    public static PathResult aStarSearch(CompactGraph graph, int start, int end, Heuristic heuristic) {
+        SearchScratch scratch = graph.acquireScratch();
+        try {
+            return aStarSearch(graph, start, end, heuristic, scratch);
+        } finally {
+            graph.releaseScratch(scratch);
         }
     }
-    
-    public static class AStarResult {
-        public List<String> path;
-        public double totalDistance;
-        public int nodesExplored;
-        
-        public AStarResult(List<String> path, double totalDistance, int nodesExplored) {
-            this.path = path;
-            this.totalDistance = totalDistance;
-            this.nodesExplored = nodesExplored;
+
+    // A* with landmark lower bounds; the index is built on first use and cached on the snapshot.
+    public static PathResult altSearch(Graph graph, Nodes start, Nodes end) {
+        CompactGraph snapshot = graph.snapshot();
+        int startIndex = snapshot.indexOf(start);
+        int endIndex = snapshot.indexOf(end);
+        if (startIndex == -1 || endIndex == -1) {
+            return PathResult.notFound(snapshot, 0);
         }
+        return altSearch(snapshot, startIndex, endIndex);
     }
-    
-    public static AStarResult aStarSearch(Graph graph, Nodes start, Nodes end) {
-        PriorityQueue<AStarNode> openSet = new PriorityQueue<>();
-        Set<Nodes> closedSet = new HashSet<>();
-        Map<Nodes, AStarNode> allNodes = new HashMap<>();
+
+    public static PathResult altSearch(CompactGraph graph, int start, int end) {
+        return aStarSearch(graph, start, end, graph.landmarks());
+    }
+
+    // Nodes are keyed by f = g + h in an indexed heap, so lowering a queued node's cost re-sifts it in
+    // O(log n). Settled nodes are closed and never reopened.
+    private static PathResult aStarSearch(CompactGraph graph, int start, int end, Heuristic heuristic, SearchScratch scratch) {
+        int[] offsets = graph.offsets;
+        int[] targets = graph.targets;
+        double[] weights = graph.weights;
+        IndexedMinHeap openSet = scratch.queue;
         
-        AStarNode startNode = new AStarNode(start, 0, heuristic(start, end), null);
-        openSet.add(startNode);
-        allNodes.put(start, startNode);
+        scratch.reach(start, 0, -1);
+        openSet.offer(start, heuristic.estimate(graph, start, end));
         
         int nodesExplored = 0;
         
         while (!openSet.isEmpty()) {
-            AStarNode currentNode = openSet.poll();
+            int current = openSet.poll();
+            scratch.settle(current);
             nodesExplored++;
             
-            if (currentNode.node.equals(end)) {
-                return new AStarResult(reconstructPath(currentNode), currentNode.gCost, nodesExplored);
+            if (current == end) {
+                return PathResult.fromPredecessors(graph, scratch.previous, end, scratch.distance(end), nodesExplored);
             }
             
-            closedSet.add(currentNode.node);
-            
-            for (Edge edge : currentNode.node.edges) {
-                Nodes neighbor = edge.destination;
+            double currentCost = scratch.distance(current);
+            for (int e = offsets[current]; e < offsets[current + 1]; e++) {
+                int neighbor = targets[e];
                 
-                if (closedSet.contains(neighbor)) {
+                if (scratch.isSettled(neighbor)) {
                     continue;
                 }
                 
-                double tentativeGCost = currentNode.gCost + edge.weight;
-                AStarNode neighborNode = allNodes.get(neighbor);
-                
-                if (neighborNode == null) {
-                    neighborNode = new AStarNode(neighbor, Double.POSITIVE_INFINITY, heuristic(neighbor, end), null);
-                    allNodes.put(neighbor, neighborNode);
-                }
-                
-                if (tentativeGCost < neighborNode.gCost) {
-                    neighborNode.parent = currentNode;
-                    neighborNode.gCost = tentativeGCost;
-                    neighborNode.fCost = tentativeGCost + neighborNode.hCost;
-                    
-                    if (!openSet.contains(neighborNode)) {
-                        openSet.add(neighborNode);
-                    }
+                double tentativeGCost = currentCost + weights[e];
+                if (tentativeGCost < scratch.distance(neighbor)) {
+                    scratch.reach(neighbor, tentativeGCost, current);
+                    openSet.offer(neighbor, tentativeGCost + heuristic.estimate(graph, neighbor, end));
                 }
             }
         }
         
-        return new AStarResult(new ArrayList<>(), Double.POSITIVE_INFINITY, nodesExplored);
+        return PathResult.notFound(graph, nodesExplored);
     }
     
-    private static double heuristic(Nodes current, Nodes goal) {
-        return Math.abs(current.n - goal.n) * 100;
+    public static List<PathResult> findMultiplePaths(Graph graph, Nodes start, Nodes end, int numPaths) {
+        return KShortestPaths.find(graph, start, end, numPaths);
     }
     
-    private static List<String> reconstructPath(AStarNode endNode) {
-        List<String> path = new ArrayList<>();
-        AStarNode current = endNode;
-        
-        while (current != null) {
-            path.add(0, current.node.name);
-            current = current.parent;
-        }
-        
-        return path;
-    }
-    
-    public static List<AStarResult> findMultiplePaths(Graph graph, Nodes start, Nodes end, int numPaths) {
-        List<AStarResult> paths = new ArrayList<>();
-        Set<String> usedPaths = new HashSet<>();
-        
-        for (int i = 0; i < numPaths && i < 3; i++) {
-            AStarResult result = aStarSearch(graph, start, end);
-            
-            if (result.path.isEmpty() || result.totalDistance == Double.POSITIVE_INFINITY) {
-                break;
-            }
-            
-            String pathString = String.join(" -> ", result.path);
-            if (!usedPaths.contains(pathString)) {
-                paths.add(result);
-                usedPaths.add(pathString);
-            }
+    public static PathResult findPathWithLandmarks(Graph graph, Nodes start, Nodes end, List<String> landmarks) {
+        CompactGraph snapshot = graph.snapshot();
+        int startIndex = snapshot.indexOf(start);
+        int endIndex = snapshot.indexOf(end);
+        if (startIndex == -1 || endIndex == -1) {
+            return PathResult.notFound(snapshot, 0);
         }
-        
-        return paths;
+        return findPathWithLandmarks(snapshot, startIndex, endIndex, landmarks);
     }
     
-    public static AStarResult findPathWithLandmarks(Graph graph, Nodes start, Nodes end, List<String> landmarks) {
-        if (landmarks.isEmpty()) {
-            return aStarSearch(graph, start, end);
-        }
-        
+    public static PathResult findPathWithLandmarks(CompactGraph snapshot, int startIndex, int endIndex, List<String> landmarks) {
         List<Nodes> landmarkNodes = new ArrayList<>();
         for (String landmark : landmarks) {
-            for (Nodes node : graph.getNodes()) {
+            for (Nodes node : snapshot.nodes) {
                 if (node.name.toLowerCase().contains(landmark.toLowerCase())) {
                     landmarkNodes.add(node);
                     break;
@@ -152,32 +122,26 @@ public class AStarSearch {
         }
         
         if (landmarkNodes.isEmpty()) {
-            return aStarSearch(graph, start, end);
+            return aStarSearch(snapshot, startIndex, endIndex);
         }
         
-        List<String> bestPath = new ArrayList<>();
-        double bestDistance = Double.POSITIVE_INFINITY;
-        int bestNodesExplored = 0;
+        ShortestPathTree fromStart = ShortestPathTree.from(snapshot, startIndex);
+        ShortestPathTree toEnd = ShortestPathTree.towards(snapshot, endIndex);
         
+        int bestLandmark = -1;
+        double bestDistance = Double.POSITIVE_INFINITY;
         for (Nodes landmark : landmarkNodes) {
-            AStarResult toLandmark = aStarSearch(graph, start, landmark);
-            AStarResult fromLandmark = aStarSearch(graph, landmark, end);
-            
-            if (!toLandmark.path.isEmpty() && !fromLandmark.path.isEmpty()) {
-                double totalDistance = toLandmark.totalDistance + fromLandmark.totalDistance;
-                if (totalDistance < bestDistance) {
-                    bestDistance = totalDistance;
-                    bestNodesExplored = toLandmark.nodesExplored + fromLandmark.nodesExplored;
-                    
-                    List<String> combinedPath = new ArrayList<>(toLandmark.path);
-                    for (int i = 1; i < fromLandmark.path.size(); i++) {
-                        combinedPath.add(fromLandmark.path.get(i));
-                    }
-                    bestPath = combinedPath;
-                }
+            int index = snapshot.indexOf(landmark);
+            double totalDistance = fromStart.distanceTo(index) + toEnd.distanceTo(index);
+            if (totalDistance < bestDistance) {
+                bestDistance = totalDistance;
+                bestLandmark = index;
             }
         }
         
-        return new AStarResult(bestPath, bestDistance, bestNodesExplored);
+        if (bestLandmark == -1) {
+            return PathResult.notFound(snapshot, fromStart.nodesSettled + toEnd.nodesSettled);
+        }
+        return PathResult.join(fromStart.pathTo(bestLandmark), toEnd.pathFrom(bestLandmark));
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,152 @@
+import java.util.*;
+
+public class AllPairsShortestPaths {
+    private static final double INF = Double.POSITIVE_INFINITY;
+    private static final double TIGHTNESS_TOLERANCE = 1e-9;
+
+    final CompactGraph graph;
+    final int n;
+    final double[] distances;
+    final int[] next;
+
+    private AllPairsShortestPaths(CompactGraph graph, double[] distances, int[] next) {
+        this.graph = graph;
+        this.n = graph.size();
+        this.distances = distances;
+        this.next = next;
+    }
+
+    public static AllPairsShortestPaths compute(CompactGraph graph) {
+        int n = graph.size();
+        double[] distances = new double[n * n];
+        int[] next = new int[n * n];
+
+        FloydWarshall.initialize(graph, distances);
+        FloydWarshall.solve(distances, n);
+        nextHops(graph, distances, next);
+
+        return new AllPairsShortestPaths(graph, distances, next);
+    }
+
+    public CompactGraph graph() {
+        return graph;
+    }
+
+    public double distance(int start, int end) {
+        return distances[start * n + end];
+    }
+
+    public PathResult path(int start, int end) {
+        if (next[start * n + end] == -1) {
+            return PathResult.notFound(graph, n);
+        }
+
+        // A simple path has at most n nodes; anything longer means the hops are inconsistent.
+        int length = 1;
+        for (int at = start; at != end; at = next[at * n + end]) {
+            if (at == -1 || length++ == n) {
+                throw new IllegalStateException("next hops from " + start + " never reach " + end);
+            }
+        }
+
+        int[] path = new int[length];
+        path[0] = start;
+        for (int i = 1; i < length; i++) {
+            path[i] = next[path[i - 1] * n + end];
+        }
+
+        return PathResult.of(graph, path, distance(start, end), n);
+    }
+
+    // Applies a single edge weight change made to the graph behind `updated`. Returns null when the
+    // node set changed and the matrix has to be rebuilt.
+    AllPairsShortestPaths withEdgeWeight(CompactGraph updated, int u, int v, double oldWeight, double newWeight) {
+        if (updated.size() != n) {
+            return null;
+        }
+        if (newWeight == oldWeight || u == v) {
+            return new AllPairsShortestPaths(updated, distances, next);
+        }
+
+        double[] newDistances = distances.clone();
+        int[] newNext = new int[n * n];
+
+        if (newWeight < oldWeight) {
+            lowerEdge(newDistances, u, v, newWeight);
+        } else {
+            raiseEdge(updated, newDistances, u, v, oldWeight);
+        }
+        // Patching only the changed rows can leave hops in other rows pointing into rows that now
+        // break zero-weight ties the other way, so every hop is rebuilt from the new distances.
+        nextHops(updated, newDistances, newNext);
+
+        return new AllPairsShortestPaths(updated, newDistances, newNext);
+    }
+
+    // Rebuilds every next hop from the distances alone. For each end the hops form a tree grown backwards
+    // from it over tight edges (w(x, y) + d(y, end) == d(x, end)), so following them always reaches the
+    // end, even where zero-weight edges make several hops equally short.
+    static void nextHops(CompactGraph graph, double[] distances, int[] next) {
+        int n = graph.size();
+        CompactGraph reverse = graph.reverse();
+        Arrays.fill(next, -1);
+        int[] queue = new int[n];
+        int[] reachedFor = new int[n];
+        Arrays.fill(reachedFor, -1);
+
+        for (int end = 0; end < n; end++) {
+            reachedFor[end] = end;
+            queue[0] = end;
+            int head = 0;
+            int tail = 1;
+            while (head < tail) {
+                int y = queue[head++];
+                double fromY = distances[y * n + end];
+                for (int e = reverse.offsets[y]; e < reverse.offsets[y + 1]; e++) {
+                    int x = reverse.targets[e];
+                    double fromX = distances[x * n + end];
+                    if (reachedFor[x] == end || fromX == INF
+                            || reverse.weights[e] + fromY > fromX + TIGHTNESS_TOLERANCE * Math.max(1.0, fromX)) {
+                        continue;
+                    }
+                    reachedFor[x] = end;
+                    next[x * n + end] = y;
+                    queue[tail++] = x;
+                }
+            }
+        }
+    }
+
+    private void lowerEdge(double[] distances, int u, int v, double weight) {
+        int rowV = v * n;
+        for (int i = 0; i < n; i++) {
+            double toU = distances[i * n + u];
+            if (toU == INF) {
+                continue;
+            }
+
+            int row = i * n;
+            double viaEdge = toU + weight;
+            for (int j = 0; j < n; j++) {
+                double candidate = viaEdge + distances[rowV + j];
+                if (candidate < distances[row + j]) {
+                    distances[row + j] = candidate;
+                }
+            }
+        }
+    }
+
+    // Only sources whose shortest-path tree could have used u -> v need recomputing.
+    private void raiseEdge(CompactGraph updated, double[] distances, int u, int v, double oldWeight) {
+        for (int i = 0; i < n; i++) {
+            double toU = distances[i * n + u];
+            double toV = distances[i * n + v];
+            if (toU == INF || toU + oldWeight > toV + TIGHTNESS_TOLERANCE * Math.max(1.0, toV)) {
+                continue;
+            }
+
+            ShortestPathTree tree = ShortestPathTree.from(updated, i);
+            System.arraycopy(tree.distances, 0, distances, i * n, n);
+        }
+    }
+}
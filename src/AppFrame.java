@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
 import javax.swing.*;
 import javax.swing.border.LineBorder;
 import javax.swing.border.TitledBorder;
@@ -24,6 +25,9 @@ public class AppFrame extends JFrame implements ActionListener {
     private JScrollPane scrollPane;
     private Graph graph;
     private Map<String, Nodes> locationNodes;
+    private RouteWorker routeWorker;
+    // displayResults always applies the standard accessibility profile.
+    private static final String ROUTE_PROFILE = "standard";
 
     public AppFrame() {
         applyDarkThemeUIDefaults(); // design-only change
@@ -70,95 +74,8 @@ public class AppFrame extends JFrame implements ActionListener {
     }
 
     private void initializeGraph() {
-        graph = new Graph(true);
         locationNodes = new HashMap<>();
-
-        Nodes engineeringSchool = new Nodes(0, "Engineering School");
-        Nodes csDept = new Nodes(1, "CS Department");
-        Nodes lawFaculty = new Nodes(2, "Law Faculty");
-        Nodes jqb = new Nodes(3, "JQB");
-        Nodes mainGate = new Nodes(4, "Main Gate");
-        Nodes performingArts = new Nodes(5, "School of Performing Arts");
-        Nodes mathDept = new Nodes(6, "Math Department");
-        Nodes balmeLibrary = new Nodes(7, "Balme Library");
-        Nodes ugcs = new Nodes(8, "UGCS");
-        Nodes businessSchool = new Nodes(9, "Business School");
-        Nodes voltaHall = new Nodes(10, "Volta Hall");
-        Nodes commonwealth = new Nodes(11, "Commonwealth");
-        Nodes greatHall = new Nodes(12, "Great Hall");
-        Nodes akuafoHall = new Nodes(13, "Akuafo Hall");
-        Nodes legonHall = new Nodes(14, "Legon Hall");
-        Nodes bushCanteen = new Nodes(15, "Bush Canteen");
-        Nodes sarbahPark = new Nodes(16, "Sarbah Park");
-        Nodes fireStation = new Nodes(17, "Fire Station");
-        Nodes bankingSquare = new Nodes(18, "Banking Square");
-        Nodes nightMarket = new Nodes(19, "Night Market");
-        Nodes basicSchool = new Nodes(20, "Basic School");
-        Nodes diasporaHalls = new Nodes(21, "Diaspora Halls");
-
-        locationNodes.put("Engineering School", engineeringSchool);
-        locationNodes.put("CS Department", csDept);
-        locationNodes.put("Law Faculty", lawFaculty);
-        locationNodes.put("JQB", jqb);
-        locationNodes.put("Main Gate", mainGate);
-        locationNodes.put("School of Performing Arts", performingArts);
-        locationNodes.put("Math Department", mathDept);
-        locationNodes.put("Balme Library", balmeLibrary);
-        locationNodes.put("UGCS", ugcs);
-        locationNodes.put("Business School", businessSchool);
-        locationNodes.put("Volta Hall", voltaHall);
-        locationNodes.put("Commonwealth", commonwealth);
-        locationNodes.put("Great Hall", greatHall);
-        locationNodes.put("Akuafo Hall", akuafoHall);
-        locationNodes.put("Legon Hall", legonHall);
-        locationNodes.put("Bush Canteen", bushCanteen);
-        locationNodes.put("Sarbah Park", sarbahPark);
-        locationNodes.put("Fire Station", fireStation);
-        locationNodes.put("Banking Square", bankingSquare);
-        locationNodes.put("Night Market", nightMarket);
-        locationNodes.put("Basic School", basicSchool);
-        locationNodes.put("Diaspora Halls", diasporaHalls);
-
-        addEdgesToGraph();
-    }
-
-    private void addEdgesToGraph() {
-        graph.addEdge(locationNodes.get("Engineering School"), locationNodes.get("CS Department"), 270.12);
-        graph.addEdge(locationNodes.get("Engineering School"), locationNodes.get("Law Faculty"), 420.88);
-        graph.addEdge(locationNodes.get("Engineering School"), locationNodes.get("JQB"), 502.43);
-        graph.addEdge(locationNodes.get("CS Department"), locationNodes.get("Law Faculty"), 346.45);
-        graph.addEdge(locationNodes.get("Law Faculty"), locationNodes.get("JQB"), 289.39);
-        graph.addEdge(locationNodes.get("CS Department"), locationNodes.get("Math Department"), 208.65);
-        graph.addEdge(locationNodes.get("Math Department"), locationNodes.get("UGCS"), 653.88);
-        graph.addEdge(locationNodes.get("UGCS"), locationNodes.get("Business School"), 407.81);
-        graph.addEdge(locationNodes.get("Business School"), locationNodes.get("Volta Hall"), 346.82);
-        graph.addEdge(locationNodes.get("Volta Hall"), locationNodes.get("Commonwealth"), 536.69);
-        graph.addEdge(locationNodes.get("Commonwealth"), locationNodes.get("Great Hall"), 586.81);
-        graph.addEdge(locationNodes.get("Main Gate"), locationNodes.get("School of Performing Arts"), 50.00);
-        graph.addEdge(locationNodes.get("School of Performing Arts"), locationNodes.get("Balme Library"), 992.04);
-        graph.addEdge(locationNodes.get("UGCS"), locationNodes.get("Balme Library"), 269.71);
-        graph.addEdge(locationNodes.get("Balme Library"), locationNodes.get("Akuafo Hall"), 316.59);
-        graph.addEdge(locationNodes.get("Balme Library"), locationNodes.get("Commonwealth"), 520);
-        graph.addEdge(locationNodes.get("School of Performing Arts"), locationNodes.get("Akuafo Hall"), 701.74);
-        graph.addEdge(locationNodes.get("Balme Library"), locationNodes.get("Legon Hall"), 586.81);
-        graph.addEdge(locationNodes.get("Legon Hall"), locationNodes.get("Akuafo Hall"), 100);
-        graph.addEdge(locationNodes.get("Legon Hall"), locationNodes.get("Basic School"), 1015.00);
-        graph.addEdge(locationNodes.get("Legon Hall"), locationNodes.get("Sarbah Park"), 500.00);
-        graph.addEdge(locationNodes.get("Akuafo Hall"), locationNodes.get("Sarbah Park"), 200.00);
-        graph.addEdge(locationNodes.get("Basic School"), locationNodes.get("Night Market"), 591.36);
-        graph.addEdge(locationNodes.get("Night Market"), locationNodes.get("Diaspora Halls"), 645.28);
-        graph.addEdge(locationNodes.get("Night Market"), locationNodes.get("Banking Square"), 957.14);
-        graph.addEdge(locationNodes.get("Bush Canteen"), locationNodes.get("Fire Station"), 122.85);
-        graph.addEdge(locationNodes.get("Fire Station"), locationNodes.get("Banking Square"), 957.14);
-
-        graph.addEdge(locationNodes.get("Main Gate"), locationNodes.get("Engineering School"), 800.00);
-        graph.addEdge(locationNodes.get("Main Gate"), locationNodes.get("JQB"), 750.00);
-        graph.addEdge(locationNodes.get("JQB"), locationNodes.get("Math Department"), 400.00);
-        graph.addEdge(locationNodes.get("Great Hall"), locationNodes.get("Akuafo Hall"), 300.00);
-        graph.addEdge(locationNodes.get("Great Hall"), locationNodes.get("Legon Hall"), 400.00);
-        graph.addEdge(locationNodes.get("Sarbah Park"), locationNodes.get("Bush Canteen"), 350.00);
-        graph.addEdge(locationNodes.get("Diaspora Halls"), locationNodes.get("Basic School"), 800.00);
-        graph.addEdge(locationNodes.get("Banking Square"), locationNodes.get("Bush Canteen"), 600.00);
+        graph = CampusMap.build(locationNodes);
     }
 
     private void setupUI() {
@@ -293,6 +210,8 @@ public class AppFrame extends JFrame implements ActionListener {
 
         findRouteButton.addActionListener(this);
         clearButton.addActionListener(this);
+        startComboBox.addActionListener(this);
+        endComboBox.addActionListener(this);
 
         addButtonHoverEffects(); // keeps your original hover logic (colors adjusted below)
         return box;
@@ -376,6 +295,8 @@ public class AppFrame extends JFrame implements ActionListener {
             findRoute();
         } else if (e.getSource() == clearButton) {
             clearResults();
+        } else if (e.getSource() == startComboBox || e.getSource() == endComboBox) {
+            cancelRouteSearch();
         }
     }
 
@@ -407,19 +328,115 @@ public class AppFrame extends JFrame implements ActionListener {
                 return;
             }
 
-            RouteOptimizer.RouteAnalysis analysis =
-                    RouteOptimizer.findOptimalRoutes(graph, startNode, endNode, new ArrayList<>());
-            displayResults(analysis, startLocation, endLocation);
+            // A second click replaces the search still running instead of queueing behind it.
+            cancelRouteSearch();
+            resultArea.setText("Finding routes from " + startLocation + " to " + endLocation + "...\n\n");
+            routeWorker = new RouteWorker(startNode, endNode, startLocation, endLocation);
+            routeWorker.execute();
 
         } catch (Exception ex) {
-            JOptionPane.showMessageDialog(frame,
-                    "An error occurred while finding the route: " + ex.getMessage(),
-                    "Error", JOptionPane.ERROR_MESSAGE);
-            ex.printStackTrace();
+            showRouteError(ex);
+        }
+    }
+
+    private void cancelRouteSearch() {
+        if (routeWorker != null && !routeWorker.isDone()) {
+            routeWorker.cancel(true);
+            resultArea.append("\nRoute search cancelled.\n");
         }
+        routeWorker = null;
+    }
+
+    private void showRouteError(Throwable ex) {
+        JOptionPane.showMessageDialog(frame,
+                "An error occurred while finding the route: " + ex.getMessage(),
+                "Error", JOptionPane.ERROR_MESSAGE);
+        ex.printStackTrace();
     }
 
-    private void displayResults(RouteOptimizer.RouteAnalysis analysis, String startLocation, String endLocation) {
+    // Everything displayResults shows, computed by the worker so the EDT only formats text.
+    private static class RouteResults {
+        final RouteOptimizer.RouteAnalysis analysis;
+        final java.time.LocalTime departureTime;
+        final RouteOptimizer.RouteAnalysis departure;
+        final List<TrafficSimulator.TimeBasedRoute> bestDepartures;
+        final RouteOptimizer.RouteAnalysis weather;
+
+        RouteResults(RouteOptimizer.RouteAnalysis analysis, java.time.LocalTime departureTime,
+                     RouteOptimizer.RouteAnalysis departure, List<TrafficSimulator.TimeBasedRoute> bestDepartures,
+                     RouteOptimizer.RouteAnalysis weather) {
+            this.analysis = analysis;
+            this.departureTime = departureTime;
+            this.departure = departure;
+            this.bestDepartures = bestDepartures;
+            this.weather = weather;
+        }
+    }
+
+    // Runs the algorithm comparison off the EDT. Each algorithm is listed as it finishes, so the fastest
+    // answer shows first; the full analysis replaces the list once every algorithm is in or timed out.
+    private class RouteWorker extends SwingWorker<RouteResults, String> {
+        private final Nodes startNode;
+        private final Nodes endNode;
+        private final String startLocation;
+        private final String endLocation;
+
+        RouteWorker(Nodes startNode, Nodes endNode, String startLocation, String endLocation) {
+            this.startNode = startNode;
+            this.endNode = endNode;
+            this.startLocation = startLocation;
+            this.endLocation = endLocation;
+        }
+
+        @Override
+        protected RouteResults doInBackground() {
+            RouteOptimizer.RouteAnalysis analysis = RouteOptimizer.analysisCache().get(graph, startNode, endNode, "comparison", ROUTE_PROFILE,
+                    () -> RouteOptimizer.findOptimalRoutesInParallel(graph, startNode, endNode, new ArrayList<>(),
+                            new HashMap<>(), (algorithm, result, millis) -> publish(progressLine(algorithm, result, millis))),
+                    RouteOptimizer.RouteAnalysis::isComplete);
+            java.time.LocalTime departureTime = java.time.LocalTime.now();
+            return new RouteResults(analysis, departureTime,
+                    RouteOptimizer.optimizeForDeparture(graph, startNode, endNode, departureTime),
+                    TrafficSimulator.findOptimalDepartureTimes(graph, startNode, endNode),
+                    RouteOptimizer.optimizeForWeather(graph, startNode, endNode));
+        }
+
+        @Override
+        protected void process(List<String> lines) {
+            if (routeWorker != this) {
+                return;
+            }
+            for (String line : lines) {
+                resultArea.append(line);
+            }
+        }
+
+        @Override
+        protected void done() {
+            if (routeWorker != this || isCancelled()) {
+                return;
+            }
+            routeWorker = null;
+            try {
+                displayResults(get(), startLocation, endLocation);
+            } catch (ExecutionException ex) {
+                showRouteError(ex.getCause());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static String progressLine(String algorithm, PathResult result, double millis) {
+        if (!result.isFound()) {
+            return String.format("• %s: no route (%.1fms)%n", algorithm, millis);
+        }
+        return String.format("• %s: %.2f meters (%.1fms, %d nodes settled)%n",
+                algorithm, result.totalDistance, millis, result.nodesExplored);
+    }
+
+    private void displayResults(RouteResults results, String startLocation, String endLocation) {
+        RouteOptimizer.RouteAnalysis analysis = results.analysis;
         StringBuilder result = new StringBuilder();
         result.append("UG CAMPUS ADVANCED ROUTE ANALYSIS\n");
         result.append("From: ").append(startLocation).append("\n");
@@ -434,19 +451,38 @@ public class AppFrame extends JFrame implements ActionListener {
             result.append("Base Time: ").append(String.format("%.1f", analysis.optimalRoute.time)).append(" seconds\n");
             result.append("Base Time: ").append(String.format("%.1f", analysis.optimalRoute.time / 60)).append(" minutes\n\n");
 
-            TrafficSimulator.TimeBasedRoute trafficRoute = TrafficSimulator.optimizeForTime(
-                    analysis.optimalRoute.path, analysis.optimalRoute.distance, analysis.optimalRoute.time,
-                    java.time.LocalTime.now());
-            result.append(" TRAFFIC-ADJUSTED TIME: ")
-                    .append(String.format("%.1f", trafficRoute.trafficAdjustedTime)).append(" seconds\n");
-            result.append(" RECOMMENDATION: ").append(trafficRoute.recommendedTime).append("\n\n");
+            SortingAlgorithms.Route trafficRoute = results.departure.optimalRoute;
+            if (trafficRoute != null) {
+                if (!trafficRoute.path.equals(analysis.optimalRoute.path)) {
+                    result.append(" TRAFFIC-AWARE ROUTE: ").append(String.join(" → ", trafficRoute.path))
+                            .append(String.format(" (%.2f meters)", trafficRoute.distance)).append("\n");
+                }
+                result.append(" TRAFFIC-ADJUSTED TIME: ")
+                        .append(String.format("%.1f", trafficRoute.time)).append(" seconds (leaving at ")
+                        .append(results.departureTime.withNano(0)).append(")\n");
+            }
+            if (!results.bestDepartures.isEmpty()) {
+                TrafficSimulator.TimeBasedRoute best = results.bestDepartures.get(0);
+                result.append(" RECOMMENDATION: ").append(best.recommendedTime)
+                        .append(String.format(" (%.1f seconds)", best.trafficAdjustedTime)).append("\n");
+            }
+            result.append("\n");
 
             WeatherIntegration.WeatherAdjustedRoute weatherRoute =
                     WeatherIntegration.adjustRouteForWeather(
                             analysis.optimalRoute.path, analysis.optimalRoute.distance, analysis.optimalRoute.time);
             result.append(" WEATHER-ADJUSTED TIME: ")
                     .append(String.format("%.1f", weatherRoute.weatherAdjustedTime)).append(" seconds\n");
-            result.append(" WEATHER IMPACT: ").append(weatherRoute.weatherImpact).append("\n\n");
+            result.append(" WEATHER IMPACT: ").append(weatherRoute.weatherImpact).append("\n");
+            RouteOptimizer.RouteAnalysis weatherAnalysis = results.weather;
+            if (weatherAnalysis.optimalRoute != null
+                    && !weatherAnalysis.optimalRoute.path.equals(analysis.optimalRoute.path)) {
+                result.append(" WEATHER-AWARE ROUTE: ")
+                        .append(String.join(" → ", weatherAnalysis.optimalRoute.path))
+                        .append(String.format(" (%.2f meters, %.1f seconds)", weatherAnalysis.optimalRoute.distance,
+                                weatherAnalysis.optimalRoute.time)).append("\n");
+            }
+            result.append("\n");
 
             AccessibilityFeatures.AccessibilityRoute accessibleRoute =
                     AccessibilityFeatures.createAccessibleRoute(
@@ -474,7 +510,15 @@ public class AppFrame extends JFrame implements ActionListener {
         if (!analysis.algorithmPerformance.isEmpty()) {
             result.append("⚡ ALGORITHM PERFORMANCE ANALYSIS:\n");
             for (Map.Entry<String, Double> entry : analysis.algorithmPerformance.entrySet()) {
-                result.append("• ").append(entry.getKey()).append(": ").append(entry.getValue()).append("ms\n");
+                result.append("• ").append(entry.getKey()).append(": ").append(entry.getValue()).append("ms");
+                Integer settled = analysis.nodesSettled.get(entry.getKey());
+                if (settled != null) {
+                    result.append(" (").append(settled).append(" nodes settled)");
+                }
+                result.append("\n");
+            }
+            for (String algorithm : analysis.timedOutAlgorithms) {
+                result.append("• ").append(algorithm).append(": timed out\n");
             }
             result.append("\n");
         }
@@ -541,6 +585,7 @@ public class AppFrame extends JFrame implements ActionListener {
     }
 
     private void clearResults() {
+        cancelRouteSearch();
         resultArea.setText("");
         startComboBox.setSelectedIndex(0);
         endComboBox.setSelectedIndex(0);
@@ -0,0 +1,127 @@
+public class BidirectionalSearch {
+    private static final double INF = Double.POSITIVE_INFINITY;
+
+    public static PathResult dijkstra(Graph graph, Nodes start, Nodes end) {
+        return aStar(graph, start, end, AStarSearch.NONE);
+    }
+
+    public static PathResult dijkstra(CompactGraph graph, int start, int end) {
+        return aStar(graph, start, end, AStarSearch.NONE);
+    }
+
+    public static PathResult aStar(Graph graph, Nodes start, Nodes end) {
+        return aStar(graph, start, end, AStarSearch.EUCLIDEAN);
+    }
+
+    public static PathResult aStar(Graph graph, Nodes start, Nodes end, AStarSearch.Heuristic heuristic) {
+        CompactGraph snapshot = graph.snapshot();
+        int startIndex = snapshot.indexOf(start);
+        int endIndex = snapshot.indexOf(end);
+        if (startIndex == -1 || endIndex == -1) {
+            return PathResult.notFound(snapshot, 0);
+        }
+        return aStar(snapshot, startIndex, endIndex, heuristic);
+    }
+
+    public static PathResult aStar(CompactGraph graph, int start, int end) {
+        return aStar(graph, start, end, AStarSearch.EUCLIDEAN);
+    }
+
+    public static PathResult aStar(CompactGraph graph, int start, int end, AStarSearch.Heuristic heuristic) {
+        SearchScratch forward = graph.acquireScratch();
+        SearchScratch backward = graph.acquireScratch();
+        try {
+            return search(graph, start, end, heuristic, forward, backward);
+        } finally {
+            graph.releaseScratch(forward);
+            graph.releaseScratch(backward);
+        }
+    }
+
+    // Forward search on the graph and backward search on its reverse, both keyed by distance plus the
+    // average potential p(v) = (h(v, end) - h(start, v)) / 2, negated for the backward side. The two
+    // potentials sum to zero, so the search can stop once the two smallest keys add up to the best
+    // meeting distance. With NONE this is plain bidirectional Dijkstra.
+    private static PathResult search(CompactGraph graph, int start, int end, AStarSearch.Heuristic heuristic,
+                                     SearchScratch forward, SearchScratch backward) {
+        if (start == end) {
+            return PathResult.of(graph, new int[]{start}, 0, 1);
+        }
+
+        CompactGraph reverse = graph.reverse();
+        IndexedMinHeap forwardQueue = forward.queue;
+        IndexedMinHeap backwardQueue = backward.queue;
+
+        forward.reach(start, 0, -1);
+        forwardQueue.offer(start, potential(graph, heuristic, start, end, start));
+        backward.reach(end, 0, -1);
+        backwardQueue.offer(end, -potential(graph, heuristic, start, end, end));
+
+        double best = INF;
+        int meeting = -1;
+        int nodesSettled = 0;
+
+        while (!forwardQueue.isEmpty() && !backwardQueue.isEmpty()
+                && forwardQueue.peekKey() + backwardQueue.peekKey() < best) {
+            boolean forwardTurn = forwardQueue.peekKey() <= backwardQueue.peekKey();
+            SearchScratch side = forwardTurn ? forward : backward;
+            SearchScratch opposite = forwardTurn ? backward : forward;
+            CompactGraph direction = forwardTurn ? graph : reverse;
+            double sign = forwardTurn ? 1 : -1;
+
+            int current = side.queue.poll();
+            side.settle(current);
+            nodesSettled++;
+
+            double currentDistance = side.distance(current);
+            for (int e = direction.offsets[current]; e < direction.offsets[current + 1]; e++) {
+                int neighbor = direction.targets[e];
+                if (side.isSettled(neighbor)) {
+                    continue;
+                }
+
+                double candidate = currentDistance + direction.weights[e];
+                if (candidate < side.distance(neighbor)) {
+                    side.reach(neighbor, candidate, current);
+                    side.queue.offer(neighbor, candidate + sign * potential(graph, heuristic, start, end, neighbor));
+                }
+                double through = candidate + opposite.distance(neighbor);
+                if (through < best) {
+                    best = through;
+                    meeting = neighbor;
+                }
+            }
+        }
+
+        if (meeting == -1) {
+            return PathResult.notFound(graph, nodesSettled);
+        }
+
+        int forwardHops = 0;
+        for (int at = meeting; at != start; at = forward.previous[at]) {
+            forwardHops++;
+        }
+        int backwardHops = 0;
+        for (int at = meeting; at != end; at = backward.previous[at]) {
+            backwardHops++;
+        }
+
+        int[] path = new int[forwardHops + backwardHops + 1];
+        int at = meeting;
+        for (int i = forwardHops; i >= 0; i--) {
+            path[i] = at;
+            at = forward.previous[at];
+        }
+        at = meeting;
+        for (int i = forwardHops + 1; i < path.length; i++) {
+            at = backward.previous[at];
+            path[i] = at;
+        }
+
+        return PathResult.of(graph, path, best, nodesSettled);
+    }
+
+    private static double potential(CompactGraph graph, AStarSearch.Heuristic heuristic, int start, int end, int node) {
+        return (heuristic.estimate(graph, node, end) - heuristic.estimate(graph, start, node)) / 2;
+    }
+}
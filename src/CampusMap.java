@@ -0,0 +1,94 @@
+import java.util.*;
+
+public class CampusMap {
+
+    public static Graph build(Map<String, Nodes> locationNodes) {
+        Graph graph = new Graph(true);
+
+        // Planar layout in metres, fitted to the walking distances of the edges below.
+        Nodes engineeringSchool = new Nodes(0, "Engineering School", 170, 355);
+        Nodes csDept = new Nodes(1, "CS Department", 390, 407);
+        Nodes lawFaculty = new Nodes(2, "Law Faculty", 0, 600);
+        Nodes jqb = new Nodes(3, "JQB", 177, 822);
+        Nodes mainGate = new Nodes(4, "Main Gate", 647, 1370);
+        Nodes performingArts = new Nodes(5, "School of Performing Arts", 695, 1385);
+        Nodes mathDept = new Nodes(6, "Math Department", 555, 532);
+        Nodes balmeLibrary = new Nodes(7, "Balme Library", 1469, 926);
+        Nodes ugcs = new Nodes(8, "UGCS", 1317, 666);
+        Nodes businessSchool = new Nodes(9, "Business School", 1494, 218);
+        Nodes voltaHall = new Nodes(10, "Volta Hall", 1795, 0);
+        Nodes commonwealth = new Nodes(11, "Commonwealth", 1983, 557);
+        Nodes greatHall = new Nodes(12, "Great Hall", 1875, 1156);
+        Nodes akuafoHall = new Nodes(13, "Akuafo Hall", 1529, 1288);
+        Nodes legonHall = new Nodes(14, "Legon Hall", 1625, 1291);
+        Nodes bushCanteen = new Nodes(15, "Bush Canteen", 1600, 1887);
+        Nodes sarbahPark = new Nodes(16, "Sarbah Park", 1524, 1511);
+        Nodes fireStation = new Nodes(17, "Fire Station", 1542, 1996);
+        Nodes bankingSquare = new Nodes(18, "Banking Square", 1945, 2465);
+        Nodes nightMarket = new Nodes(19, "Night Market", 2966, 2373);
+        Nodes basicSchool = new Nodes(20, "Basic School", 2796, 1739);
+        Nodes diasporaHalls = new Nodes(21, "Diaspora Halls", 3520, 2082);
+
+        locationNodes.put("Engineering School", engineeringSchool);
+        locationNodes.put("CS Department", csDept);
+        locationNodes.put("Law Faculty", lawFaculty);
+        locationNodes.put("JQB", jqb);
+        locationNodes.put("Main Gate", mainGate);
+        locationNodes.put("School of Performing Arts", performingArts);
+        locationNodes.put("Math Department", mathDept);
+        locationNodes.put("Balme Library", balmeLibrary);
+        locationNodes.put("UGCS", ugcs);
+        locationNodes.put("Business School", businessSchool);
+        locationNodes.put("Volta Hall", voltaHall);
+        locationNodes.put("Commonwealth", commonwealth);
+        locationNodes.put("Great Hall", greatHall);
+        locationNodes.put("Akuafo Hall", akuafoHall);
+        locationNodes.put("Legon Hall", legonHall);
+        locationNodes.put("Bush Canteen", bushCanteen);
+        locationNodes.put("Sarbah Park", sarbahPark);
+        locationNodes.put("Fire Station", fireStation);
+        locationNodes.put("Banking Square", bankingSquare);
+        locationNodes.put("Night Market", nightMarket);
+        locationNodes.put("Basic School", basicSchool);
+        locationNodes.put("Diaspora Halls", diasporaHalls);
+
+        graph.addEdge(locationNodes.get("Engineering School"), locationNodes.get("CS Department"), 270.12);
+        graph.addEdge(locationNodes.get("Engineering School"), locationNodes.get("Law Faculty"), 420.88);
+        graph.addEdge(locationNodes.get("Engineering School"), locationNodes.get("JQB"), 502.43);
+        graph.addEdge(locationNodes.get("CS Department"), locationNodes.get("Law Faculty"), 346.45);
+        graph.addEdge(locationNodes.get("Law Faculty"), locationNodes.get("JQB"), 289.39);
+        graph.addEdge(locationNodes.get("CS Department"), locationNodes.get("Math Department"), 208.65);
+        graph.addEdge(locationNodes.get("Math Department"), locationNodes.get("UGCS"), 653.88);
+        graph.addEdge(locationNodes.get("UGCS"), locationNodes.get("Business School"), 407.81);
+        graph.addEdge(locationNodes.get("Business School"), locationNodes.get("Volta Hall"), 346.82);
+        graph.addEdge(locationNodes.get("Volta Hall"), locationNodes.get("Commonwealth"), 536.69);
+        graph.addEdge(locationNodes.get("Commonwealth"), locationNodes.get("Great Hall"), 586.81);
+        graph.addEdge(locationNodes.get("Main Gate"), locationNodes.get("School of Performing Arts"), 50.00);
+        graph.addEdge(locationNodes.get("School of Performing Arts"), locationNodes.get("Balme Library"), 992.04);
+        graph.addEdge(locationNodes.get("UGCS"), locationNodes.get("Balme Library"), 269.71);
+        graph.addEdge(locationNodes.get("Balme Library"), locationNodes.get("Akuafo Hall"), 316.59);
+        graph.addEdge(locationNodes.get("Balme Library"), locationNodes.get("Commonwealth"), 520);
+        graph.addEdge(locationNodes.get("School of Performing Arts"), locationNodes.get("Akuafo Hall"), 701.74);
+        graph.addEdge(locationNodes.get("Balme Library"), locationNodes.get("Legon Hall"), 586.81);
+        graph.addEdge(locationNodes.get("Legon Hall"), locationNodes.get("Akuafo Hall"), 100);
+        graph.addEdge(locationNodes.get("Legon Hall"), locationNodes.get("Basic School"), 1015.00);
+        graph.addEdge(locationNodes.get("Legon Hall"), locationNodes.get("Sarbah Park"), 500.00);
+        graph.addEdge(locationNodes.get("Akuafo Hall"), locationNodes.get("Sarbah Park"), 200.00);
+        graph.addEdge(locationNodes.get("Basic School"), locationNodes.get("Night Market"), 591.36);
+        graph.addEdge(locationNodes.get("Night Market"), locationNodes.get("Diaspora Halls"), 645.28);
+        graph.addEdge(locationNodes.get("Night Market"), locationNodes.get("Banking Square"), 957.14);
+        graph.addEdge(locationNodes.get("Bush Canteen"), locationNodes.get("Fire Station"), 122.85);
+        graph.addEdge(locationNodes.get("Fire Station"), locationNodes.get("Banking Square"), 957.14);
+
+        graph.addEdge(locationNodes.get("Main Gate"), locationNodes.get("Engineering School"), 800.00);
+        graph.addEdge(locationNodes.get("Main Gate"), locationNodes.get("JQB"), 750.00);
+        graph.addEdge(locationNodes.get("JQB"), locationNodes.get("Math Department"), 400.00);
+        graph.addEdge(locationNodes.get("Great Hall"), locationNodes.get("Akuafo Hall"), 300.00);
+        graph.addEdge(locationNodes.get("Great Hall"), locationNodes.get("Legon Hall"), 400.00);
+        graph.addEdge(locationNodes.get("Sarbah Park"), locationNodes.get("Bush Canteen"), 350.00);
+        graph.addEdge(locationNodes.get("Diaspora Halls"), locationNodes.get("Basic School"), 800.00);
+        graph.addEdge(locationNodes.get("Banking Square"), locationNodes.get("Bush Canteen"), 600.00);
+
+        return graph;
+    }
+}
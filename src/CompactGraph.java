@@ -0,0 +1,290 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public class CompactGraph {
+    final Nodes[] nodes;
+    final int[] offsets;
+    final int[] targets;
+    final double[] weights;
+    private final Map<Nodes, Integer> index;
+    // False for graphs made by withWeights, whose weights are already scaled by traffic or weather.
+    private final boolean plainWeights;
+    private final Queue<SearchScratch> scratchPool = new ConcurrentLinkedQueue<>();
+    private volatile double coordinateScale = -1;
+    private volatile CompactGraph reverse;
+    private volatile LandmarkIndex landmarks;
+    private volatile ContractionHierarchy contractionHierarchy;
+    private volatile AllPairsShortestPaths allPairs;
+    private volatile WeatherOverlay weather;
+
+    CompactGraph(Nodes[] nodes, int[] offsets, int[] targets, double[] weights) {
+        this(nodes, offsets, targets, weights, true);
+    }
+
+    private CompactGraph(Nodes[] nodes, int[] offsets, int[] targets, double[] weights, boolean plainWeights) {
+        this(nodes, offsets, targets, weights, new HashMap<>(), plainWeights);
+        for (int i = 0; i < nodes.length; i++) {
+            index.put(nodes[i], i);
+        }
+    }
+
+    private CompactGraph(Nodes[] nodes, int[] offsets, int[] targets, double[] weights, Map<Nodes, Integer> index,
+                         boolean plainWeights) {
+        this.nodes = nodes;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.index = index;
+        this.plainWeights = plainWeights;
+    }
+
+    // Same nodes and edges with new weights, indexed like `weights`; the array is kept, not copied. The
+    // structure is shared, while derived data (reverse graph, landmarks, hierarchy) is rebuilt on demand.
+    public CompactGraph withWeights(double[] weights) {
+        if (weights.length != this.weights.length) {
+            throw new IllegalArgumentException("expected " + this.weights.length + " weights, got " + weights.length);
+        }
+        return new CompactGraph(nodes, offsets, targets, weights, index, false);
+    }
+
+    public boolean hasPlainWeights() {
+        return plainWeights;
+    }
+
+    public static CompactGraph of(Graph graph) {
+        Nodes[] nodes = graph.getNodes().toArray(new Nodes[0]);
+        Map<Nodes, Integer> ids = new HashMap<>();
+        for (int i = 0; i < nodes.length; i++) {
+            ids.put(nodes[i], i);
+        }
+
+        int[] offsets = new int[nodes.length + 1];
+        for (int i = 0; i < nodes.length; i++) {
+            int degree = 0;
+            for (Edge edge : nodes[i].edges) {
+                if (ids.containsKey(edge.destination)) {
+                    degree++;
+                }
+            }
+            offsets[i + 1] = offsets[i] + degree;
+        }
+
+        int[] targets = new int[offsets[nodes.length]];
+        double[] weights = new double[offsets[nodes.length]];
+        for (int i = 0; i < nodes.length; i++) {
+            int slot = offsets[i];
+            for (Edge edge : nodes[i].edges) {
+                Integer target = ids.get(edge.destination);
+                if (target != null) {
+                    targets[slot] = target;
+                    weights[slot] = edge.weight;
+                    slot++;
+                }
+            }
+        }
+
+        return new CompactGraph(nodes, offsets, targets, weights);
+    }
+
+    // Builds the CSR arrays straight from an edge list, adding both directions when undirected.
+    static CompactGraph fromEdges(Nodes[] nodes, int[] sources, int[] destinations, double[] edgeWeights, boolean directed) {
+        int m = sources.length;
+        int[] offsets = new int[nodes.length + 1];
+        for (int e = 0; e < m; e++) {
+            offsets[sources[e] + 1]++;
+            if (!directed) {
+                offsets[destinations[e] + 1]++;
+            }
+        }
+        for (int i = 0; i < nodes.length; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+
+        int[] cursor = Arrays.copyOf(offsets, nodes.length);
+        int[] targets = new int[offsets[nodes.length]];
+        double[] weights = new double[offsets[nodes.length]];
+        for (int e = 0; e < m; e++) {
+            int slot = cursor[sources[e]]++;
+            targets[slot] = destinations[e];
+            weights[slot] = edgeWeights[e];
+            if (!directed) {
+                slot = cursor[destinations[e]]++;
+                targets[slot] = sources[e];
+                weights[slot] = edgeWeights[e];
+            }
+        }
+
+        return new CompactGraph(nodes, offsets, targets, weights);
+    }
+
+    public int size() {
+        return nodes.length;
+    }
+
+    public int edgeCount() {
+        return targets.length;
+    }
+
+    public int indexOf(Nodes node) {
+        Integer id = index.get(node);
+        return id == null ? -1 : id;
+    }
+
+    public Nodes node(int id) {
+        return nodes[id];
+    }
+
+    public String name(int id) {
+        return nodes[id].name;
+    }
+
+    public double edgeWeight(int source, int target) {
+        double best = Double.POSITIVE_INFINITY;
+        for (int e = offsets[source]; e < offsets[source + 1]; e++) {
+            if (targets[e] == target && weights[e] < best) {
+                best = weights[e];
+            }
+        }
+        return best;
+    }
+
+    // Same nodes with every edge flipped, for searches that run backwards from the target.
+    public CompactGraph reverse() {
+        CompactGraph current = reverse;
+        if (current == null) {
+            int n = nodes.length;
+            int[] reverseOffsets = new int[n + 1];
+            for (int target : targets) {
+                reverseOffsets[target + 1]++;
+            }
+            for (int i = 0; i < n; i++) {
+                reverseOffsets[i + 1] += reverseOffsets[i];
+            }
+
+            int[] cursor = Arrays.copyOf(reverseOffsets, n);
+            int[] reverseTargets = new int[targets.length];
+            double[] reverseWeights = new double[targets.length];
+            for (int i = 0; i < n; i++) {
+                for (int e = offsets[i]; e < offsets[i + 1]; e++) {
+                    int slot = cursor[targets[e]]++;
+                    reverseTargets[slot] = i;
+                    reverseWeights[slot] = weights[e];
+                }
+            }
+
+            current = new CompactGraph(nodes, reverseOffsets, reverseTargets, reverseWeights, plainWeights);
+            current.reverse = this;
+            reverse = current;
+        }
+        return current;
+    }
+
+    public LandmarkIndex landmarks() {
+        LandmarkIndex current = landmarks;
+        if (current == null) {
+            synchronized (this) {
+                current = landmarks;
+                if (current == null) {
+                    current = LandmarkIndex.build(this, LandmarkIndex.DEFAULT_LANDMARKS);
+                    landmarks = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    public ContractionHierarchy contractionHierarchy() {
+        ContractionHierarchy current = contractionHierarchy;
+        if (current == null) {
+            synchronized (this) {
+                current = contractionHierarchy;
+                if (current == null) {
+                    current = ContractionHierarchy.build(this);
+                    contractionHierarchy = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    public AllPairsShortestPaths allPairs() {
+        AllPairsShortestPaths current = allPairs;
+        if (current == null) {
+            synchronized (this) {
+                current = allPairs;
+                if (current == null) {
+                    current = AllPairsShortestPaths.compute(this);
+                    allPairs = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    // Overlay for this weather state, kept until another state is asked for. Only for plain weights.
+    public WeatherOverlay weather(Map<String, WeatherIntegration.WeatherCondition> conditions) {
+        WeatherOverlay current = weather;
+        if (current == null || current.conditions() != conditions) {
+            synchronized (this) {
+                current = weather;
+                if (current == null || current.conditions() != conditions) {
+                    current = WeatherOverlay.build(this, conditions);
+                    weather = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    // Largest factor c with c * straight-line distance <= weight on every edge, so c * distance(u, v)
+    // never overestimates a route. 0 when some node has no coordinates.
+    public double coordinateScale() {
+        double scale = coordinateScale;
+        if (scale < 0) {
+            scale = computeCoordinateScale();
+            coordinateScale = scale;
+        }
+        return scale;
+    }
+
+    private double computeCoordinateScale() {
+        for (Nodes node : nodes) {
+            if (!node.hasCoordinates()) {
+                return 0;
+            }
+        }
+
+        double scale = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < nodes.length; i++) {
+            for (int e = offsets[i]; e < offsets[i + 1]; e++) {
+                double length = straightLineDistance(i, targets[e]);
+                if (length > 0) {
+                    scale = Math.min(scale, weights[e] / length);
+                }
+            }
+        }
+        return scale == Double.POSITIVE_INFINITY ? 0 : scale;
+    }
+
+    public double straightLineDistance(int source, int target) {
+        return Math.hypot(nodes[source].x - nodes[target].x, nodes[source].y - nodes[target].y);
+    }
+
+    SearchScratch acquireScratch() {
+        SearchScratch scratch = scratchPool.poll();
+        return scratch != null ? scratch : new SearchScratch(nodes.length);
+    }
+
+    void releaseScratch(SearchScratch scratch) {
+        scratch.reset();
+        scratchPool.offer(scratch);
+    }
+
+    public List<String> names(int[] ids) {
+        List<String> names = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            names.add(nodes[id].name);
+        }
+        return names;
+    }
+}
@@ -0,0 +1,530 @@
+import java.io.*;
+import java.util.*;
+
+// Contraction Hierarchies: nodes are contracted one at a time in order of importance, adding a shortcut
+// u -> w whenever the only shortest u -> w path ran through the contracted node. A query then only
+// searches upward in that order, forward from the start and backward from the end.
+public class ContractionHierarchy {
+    private static final double INF = Double.POSITIVE_INFINITY;
+    private static final int FORMAT_VERSION = 1;
+    private static final int WITNESS_SETTLE_LIMIT = 64;
+
+    final CompactGraph graph;
+    final int[] rank;
+    // Every original edge and shortcut. A shortcut's halves are two other edge ids, -1 for original edges.
+    final int[] edgeSource;
+    final int[] edgeTarget;
+    final double[] edgeWeight;
+    final int[] edgeFirst;
+    final int[] edgeSecond;
+    // Edges to higher-ranked nodes, by source (forward) and by target (backward).
+    final int[] upOffsets;
+    final int[] upEdges;
+    final int[] downOffsets;
+    final int[] downEdges;
+
+    private ContractionHierarchy(CompactGraph graph, int[] rank, int[] edgeSource, int[] edgeTarget, double[] edgeWeight,
+                                 int[] edgeFirst, int[] edgeSecond, int[] upOffsets, int[] upEdges,
+                                 int[] downOffsets, int[] downEdges) {
+        this.graph = graph;
+        this.rank = rank;
+        this.edgeSource = edgeSource;
+        this.edgeTarget = edgeTarget;
+        this.edgeWeight = edgeWeight;
+        this.edgeFirst = edgeFirst;
+        this.edgeSecond = edgeSecond;
+        this.upOffsets = upOffsets;
+        this.upEdges = upEdges;
+        this.downOffsets = downOffsets;
+        this.downEdges = downEdges;
+    }
+
+    public static ContractionHierarchy build(CompactGraph graph) {
+        return new Builder(graph).build();
+    }
+
+    public static PathResult shortestPath(Graph graph, Nodes start, Nodes end) {
+        CompactGraph snapshot = graph.snapshot();
+        int startIndex = snapshot.indexOf(start);
+        int endIndex = snapshot.indexOf(end);
+        if (startIndex == -1 || endIndex == -1) {
+            return PathResult.notFound(snapshot, 0);
+        }
+        return snapshot.contractionHierarchy().shortestPath(startIndex, endIndex);
+    }
+
+    public int shortcutCount() {
+        int shortcuts = 0;
+        for (int first : edgeFirst) {
+            if (first != -1) {
+                shortcuts++;
+            }
+        }
+        return shortcuts;
+    }
+
+    public PathResult shortestPath(int start, int end) {
+        SearchScratch forward = graph.acquireScratch();
+        SearchScratch backward = graph.acquireScratch();
+        try {
+            return shortestPath(start, end, forward, backward);
+        } finally {
+            graph.releaseScratch(forward);
+            graph.releaseScratch(backward);
+        }
+    }
+
+    // Both searches only climb, so they meet at the highest node of the shortest path. A direction stops
+    // once its smallest key reaches the best meeting distance found so far. `previous` holds edge ids here.
+    private PathResult shortestPath(int start, int end, SearchScratch forward, SearchScratch backward) {
+        IndexedMinHeap forwardQueue = forward.queue;
+        IndexedMinHeap backwardQueue = backward.queue;
+
+        forward.reach(start, 0, -1);
+        forwardQueue.offer(start, 0);
+        backward.reach(end, 0, -1);
+        backwardQueue.offer(end, 0);
+
+        double best = INF;
+        int meeting = -1;
+        int nodesSettled = 0;
+
+        while (true) {
+            boolean forwardActive = !forwardQueue.isEmpty() && forwardQueue.peekKey() < best;
+            boolean backwardActive = !backwardQueue.isEmpty() && backwardQueue.peekKey() < best;
+            if (!forwardActive && !backwardActive) {
+                break;
+            }
+
+            if (forwardActive) {
+                int current = forwardQueue.poll();
+                nodesSettled++;
+                double currentDistance = forward.distance(current);
+                if (currentDistance + backward.distance(current) < best) {
+                    best = currentDistance + backward.distance(current);
+                    meeting = current;
+                }
+                for (int i = upOffsets[current]; i < upOffsets[current + 1]; i++) {
+                    int edge = upEdges[i];
+                    int neighbor = edgeTarget[edge];
+                    double candidate = currentDistance + edgeWeight[edge];
+                    if (candidate < forward.distance(neighbor)) {
+                        forward.reach(neighbor, candidate, edge);
+                        forwardQueue.offer(neighbor, candidate);
+                    }
+                }
+            }
+
+            if (backwardActive) {
+                int current = backwardQueue.poll();
+                nodesSettled++;
+                double currentDistance = backward.distance(current);
+                if (forward.distance(current) + currentDistance < best) {
+                    best = forward.distance(current) + currentDistance;
+                    meeting = current;
+                }
+                for (int i = downOffsets[current]; i < downOffsets[current + 1]; i++) {
+                    int edge = downEdges[i];
+                    int neighbor = edgeSource[edge];
+                    double candidate = currentDistance + edgeWeight[edge];
+                    if (candidate < backward.distance(neighbor)) {
+                        backward.reach(neighbor, candidate, edge);
+                        backwardQueue.offer(neighbor, candidate);
+                    }
+                }
+            }
+        }
+
+        if (meeting == -1) {
+            return PathResult.notFound(graph, nodesSettled);
+        }
+
+        List<Integer> edges = new ArrayList<>();
+        for (int at = meeting; at != start; at = edgeSource[forward.previous[at]]) {
+            edges.add(forward.previous[at]);
+        }
+        Collections.reverse(edges);
+        for (int at = meeting; at != end; at = edgeTarget[backward.previous[at]]) {
+            edges.add(backward.previous[at]);
+        }
+
+        return PathResult.of(graph, unpack(start, edges), best, nodesSettled);
+    }
+
+    // Expands shortcuts back into original edges, keeping the path in order.
+    private int[] unpack(int start, List<Integer> edges) {
+        List<Integer> path = new ArrayList<>();
+        path.add(start);
+
+        Deque<Integer> stack = new ArrayDeque<>();
+        for (int i = edges.size() - 1; i >= 0; i--) {
+            stack.push(edges.get(i));
+        }
+        while (!stack.isEmpty()) {
+            int edge = stack.pop();
+            if (edgeFirst[edge] == -1) {
+                path.add(edgeTarget[edge]);
+            } else {
+                stack.push(edgeSecond[edge]);
+                stack.push(edgeFirst[edge]);
+            }
+        }
+
+        int[] ids = new int[path.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = path.get(i);
+        }
+        return ids;
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(FORMAT_VERSION);
+        data.writeInt(graph.size());
+        data.writeInt(graph.edgeCount());
+        writeInts(data, rank);
+        data.writeInt(edgeSource.length);
+        writeInts(data, edgeSource);
+        writeInts(data, edgeTarget);
+        for (double weight : edgeWeight) {
+            data.writeDouble(weight);
+        }
+        writeInts(data, edgeFirst);
+        writeInts(data, edgeSecond);
+        writeInts(data, upOffsets);
+        writeInts(data, upEdges);
+        writeInts(data, downOffsets);
+        writeInts(data, downEdges);
+        data.flush();
+    }
+
+    // Reads a hierarchy written by writeTo for the same graph; node ids must match the snapshot order.
+    public static ContractionHierarchy readFrom(InputStream in, CompactGraph graph) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        if (data.readInt() != FORMAT_VERSION) {
+            throw new IOException("Unsupported contraction hierarchy format");
+        }
+        int n = data.readInt();
+        int originalEdges = data.readInt();
+        if (n != graph.size() || originalEdges != graph.edgeCount()) {
+            throw new IOException("Contraction hierarchy was built for a different graph");
+        }
+
+        int[] rank = readInts(data, n);
+        int m = data.readInt();
+        int[] edgeSource = readInts(data, m);
+        int[] edgeTarget = readInts(data, m);
+        double[] edgeWeight = new double[m];
+        for (int i = 0; i < m; i++) {
+            edgeWeight[i] = data.readDouble();
+        }
+        int[] edgeFirst = readInts(data, m);
+        int[] edgeSecond = readInts(data, m);
+        int[] upOffsets = readInts(data, n + 1);
+        int[] upEdges = readInts(data, upOffsets[n]);
+        int[] downOffsets = readInts(data, n + 1);
+        int[] downEdges = readInts(data, downOffsets[n]);
+
+        return new ContractionHierarchy(graph, rank, edgeSource, edgeTarget, edgeWeight, edgeFirst, edgeSecond,
+                upOffsets, upEdges, downOffsets, downEdges);
+    }
+
+    private static void writeInts(DataOutputStream data, int[] values) throws IOException {
+        for (int value : values) {
+            data.writeInt(value);
+        }
+    }
+
+    private static int[] readInts(DataInputStream data, int count) throws IOException {
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = data.readInt();
+        }
+        return values;
+    }
+
+    private static class Builder {
+        private final CompactGraph graph;
+        private final int n;
+
+        private int edgeCount;
+        private int[] source;
+        private int[] target;
+        private double[] weight;
+        private int[] first;
+        private int[] second;
+
+        // Live edges between nodes that are not contracted yet, as edge ids.
+        private final int[][] out;
+        private final int[] outCount;
+        private final int[][] in;
+        private final int[] inCount;
+
+        private final int[] contractedNeighbors;
+        private final int[] depth;
+
+        private final double[] witnessDistances;
+        private final int[] witnessTouched;
+        private final IndexedMinHeap witnessQueue;
+        private final int[] witnessTarget;
+        private int witnessStamp;
+
+        Builder(CompactGraph graph) {
+            this.graph = graph;
+            this.n = graph.size();
+
+            int m = graph.edgeCount();
+            source = new int[Math.max(16, m * 2)];
+            target = new int[source.length];
+            weight = new double[source.length];
+            first = new int[source.length];
+            second = new int[source.length];
+
+            out = new int[n][];
+            outCount = new int[n];
+            in = new int[n][];
+            inCount = new int[n];
+            for (int v = 0; v < n; v++) {
+                out[v] = new int[4];
+                in[v] = new int[4];
+            }
+
+            contractedNeighbors = new int[n];
+            depth = new int[n];
+
+            witnessDistances = new double[n];
+            Arrays.fill(witnessDistances, INF);
+            witnessTouched = new int[n];
+            witnessQueue = new IndexedMinHeap(n);
+            witnessTarget = new int[n];
+
+            for (int u = 0; u < n; u++) {
+                for (int e = graph.offsets[u]; e < graph.offsets[u + 1]; e++) {
+                    int v = graph.targets[e];
+                    if (u != v) {
+                        connect(u, v, graph.weights[e], -1, -1);
+                    }
+                }
+            }
+        }
+
+        ContractionHierarchy build() {
+            int[] rank = new int[n];
+            int[][] upwardEdges = new int[n][];
+            int[][] downwardEdges = new int[n][];
+
+            IndexedMinHeap order = new IndexedMinHeap(n);
+            for (int v = 0; v < n; v++) {
+                order.offer(v, priority(v, shortcuts(v)));
+            }
+
+            // Lazy updates: a node's priority is recomputed when it reaches the top and it is only
+            // contracted if it still beats the next candidate.
+            int nextRank = 0;
+            while (!order.isEmpty()) {
+                int v = order.poll();
+                List<double[]> shortcuts = shortcuts(v);
+                double current = priority(v, shortcuts);
+                if (!order.isEmpty() && current > order.peekKey()) {
+                    order.offer(v, current);
+                    continue;
+                }
+
+                rank[v] = nextRank++;
+                upwardEdges[v] = Arrays.copyOf(out[v], outCount[v]);
+                downwardEdges[v] = Arrays.copyOf(in[v], inCount[v]);
+                contract(v, shortcuts);
+            }
+
+            return assemble(rank, upwardEdges, downwardEdges);
+        }
+
+        // Edge difference, plus contracted neighbours and hierarchy depth so contraction spreads evenly
+        // over the graph instead of growing one region.
+        private double priority(int v, List<double[]> shortcuts) {
+            return 2.0 * (shortcuts.size() - outCount[v] - inCount[v]) + contractedNeighbors[v] + depth[v];
+        }
+
+        // Shortcuts needed to contract v, as {in-edge id, out-edge id, weight}.
+        private List<double[]> shortcuts(int v) {
+            List<double[]> shortcuts = new ArrayList<>();
+            if (outCount[v] == 0 || inCount[v] == 0) {
+                return shortcuts;
+            }
+
+            double longestOut = 0;
+            for (int i = 0; i < outCount[v]; i++) {
+                longestOut = Math.max(longestOut, weight[out[v][i]]);
+            }
+
+            for (int i = 0; i < inCount[v]; i++) {
+                int inEdge = in[v][i];
+                int u = source[inEdge];
+                int stamp = ++witnessStamp;
+                int pending = 0;
+                for (int j = 0; j < outCount[v]; j++) {
+                    int w = target[out[v][j]];
+                    if (w != u && witnessTarget[w] != stamp) {
+                        witnessTarget[w] = stamp;
+                        pending++;
+                    }
+                }
+                int touched = witnessSearch(u, v, weight[inEdge] + longestOut, pending);
+
+                for (int j = 0; j < outCount[v]; j++) {
+                    int outEdge = out[v][j];
+                    int w = target[outEdge];
+                    double viaV = weight[inEdge] + weight[outEdge];
+                    if (w != u && witnessDistances[w] > viaV) {
+                        shortcuts.add(new double[]{inEdge, outEdge, viaV});
+                    }
+                }
+
+                for (int t = 0; t < touched; t++) {
+                    witnessDistances[witnessTouched[t]] = INF;
+                }
+                witnessQueue.clear();
+            }
+            return shortcuts;
+        }
+
+        // Bounded Dijkstra from u that avoids v and stops once the `pending` marked targets are settled.
+        // Giving up early only costs extra shortcuts, never correctness.
+        private int witnessSearch(int u, int v, double maxDistance, int pending) {
+            int touched = 0;
+            witnessDistances[u] = 0;
+            witnessTouched[touched++] = u;
+            witnessQueue.offer(u, 0);
+
+            int settled = 0;
+            while (!witnessQueue.isEmpty() && settled < WITNESS_SETTLE_LIMIT) {
+                if (witnessQueue.peekKey() > maxDistance) {
+                    break;
+                }
+                int current = witnessQueue.poll();
+                settled++;
+                if (witnessTarget[current] == witnessStamp && --pending == 0) {
+                    break;
+                }
+
+                for (int i = 0; i < outCount[current]; i++) {
+                    int edge = out[current][i];
+                    int neighbor = target[edge];
+                    if (neighbor == v) {
+                        continue;
+                    }
+                    double candidate = witnessDistances[current] + weight[edge];
+                    if (candidate < witnessDistances[neighbor]) {
+                        if (witnessDistances[neighbor] == INF) {
+                            witnessTouched[touched++] = neighbor;
+                        }
+                        witnessDistances[neighbor] = candidate;
+                        witnessQueue.offer(neighbor, candidate);
+                    }
+                }
+            }
+            return touched;
+        }
+
+        private void contract(int v, List<double[]> shortcuts) {
+            for (int i = 0; i < outCount[v]; i++) {
+                int w = target[out[v][i]];
+                remove(in, inCount, w, v, true);
+                contractedNeighbors[w]++;
+                depth[w] = Math.max(depth[w], depth[v] + 1);
+            }
+            for (int i = 0; i < inCount[v]; i++) {
+                int u = source[in[v][i]];
+                remove(out, outCount, u, v, false);
+                contractedNeighbors[u]++;
+                depth[u] = Math.max(depth[u], depth[v] + 1);
+            }
+
+            for (double[] shortcut : shortcuts) {
+                int inEdge = (int) shortcut[0];
+                int outEdge = (int) shortcut[1];
+                connect(source[inEdge], target[outEdge], shortcut[2], inEdge, outEdge);
+            }
+        }
+
+        // Adds u -> w, replacing a heavier live edge between the same nodes.
+        private void connect(int u, int w, double edgeWeight, int firstHalf, int secondHalf) {
+            for (int i = 0; i < outCount[u]; i++) {
+                int existing = out[u][i];
+                if (target[existing] == w) {
+                    if (weight[existing] <= edgeWeight) {
+                        return;
+                    }
+                    int edge = newEdge(u, w, edgeWeight, firstHalf, secondHalf);
+                    out[u][i] = edge;
+                    for (int j = 0; j < inCount[w]; j++) {
+                        if (in[w][j] == existing) {
+                            in[w][j] = edge;
+                        }
+                    }
+                    return;
+                }
+            }
+
+            int edge = newEdge(u, w, edgeWeight, firstHalf, secondHalf);
+            append(out, outCount, u, edge);
+            append(in, inCount, w, edge);
+        }
+
+        private int newEdge(int u, int w, double edgeWeight, int firstHalf, int secondHalf) {
+            if (edgeCount == source.length) {
+                int capacity = edgeCount * 2;
+                source = Arrays.copyOf(source, capacity);
+                target = Arrays.copyOf(target, capacity);
+                weight = Arrays.copyOf(weight, capacity);
+                first = Arrays.copyOf(first, capacity);
+                second = Arrays.copyOf(second, capacity);
+            }
+            source[edgeCount] = u;
+            target[edgeCount] = w;
+            weight[edgeCount] = edgeWeight;
+            first[edgeCount] = firstHalf;
+            second[edgeCount] = secondHalf;
+            return edgeCount++;
+        }
+
+        private static void append(int[][] lists, int[] counts, int node, int edge) {
+            if (counts[node] == lists[node].length) {
+                lists[node] = Arrays.copyOf(lists[node], counts[node] * 2);
+            }
+            lists[node][counts[node]++] = edge;
+        }
+
+        // Drops the live edge of `node` that leads to (or comes from) `other`.
+        private void remove(int[][] lists, int[] counts, int node, int other, boolean bySource) {
+            int[] list = lists[node];
+            for (int i = 0; i < counts[node]; i++) {
+                int endpoint = bySource ? source[list[i]] : target[list[i]];
+                if (endpoint == other) {
+                    list[i] = list[--counts[node]];
+                    return;
+                }
+            }
+        }
+
+        private ContractionHierarchy assemble(int[] rank, int[][] upwardEdges, int[][] downwardEdges) {
+            int[] upOffsets = new int[n + 1];
+            int[] downOffsets = new int[n + 1];
+            for (int v = 0; v < n; v++) {
+                upOffsets[v + 1] = upOffsets[v] + upwardEdges[v].length;
+                downOffsets[v + 1] = downOffsets[v] + downwardEdges[v].length;
+            }
+
+            int[] upEdges = new int[upOffsets[n]];
+            int[] downEdges = new int[downOffsets[n]];
+            for (int v = 0; v < n; v++) {
+                System.arraycopy(upwardEdges[v], 0, upEdges, upOffsets[v], upwardEdges[v].length);
+                System.arraycopy(downwardEdges[v], 0, downEdges, downOffsets[v], downwardEdges[v].length);
+            }
+
+            return new ContractionHierarchy(graph, rank, Arrays.copyOf(source, edgeCount), Arrays.copyOf(target, edgeCount),
+                    Arrays.copyOf(weight, edgeCount), Arrays.copyOf(first, edgeCount), Arrays.copyOf(second, edgeCount),
+                    upOffsets, upEdges, downOffsets, downEdges);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+// Nightly departure recommendations for many origin-destination pairs. Pairs are grouped by origin and
+// every group is answered by one multi-destination profile search, with groups running in parallel.
+// Rows are written as each group finishes, so memory stays flat however many pairs there are:
+//     origin,destination,rank,departure,window_end,travel_seconds,metres
+public class DepartureSweep {
+    public static final int DEFAULT_TOP_K = 3;
+    static final String HEADER = "origin,destination,rank,departure,window_end,travel_seconds,metres";
+
+    public static class Summary {
+        public final int pairs;
+        public final int origins;
+        public final long rows;
+        public final double elapsedMillis;
+
+        Summary(int pairs, int origins, long rows, double elapsedMillis) {
+            this.pairs = pairs;
+            this.origins = origins;
+            this.rows = rows;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public double pairsPerSecond() {
+            return elapsedMillis == 0 ? 0 : pairs * 1000.0 / elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d pairs from %d origins, %d rows in %.1f ms (%.0f pairs/s)",
+                    pairs, origins, rows, elapsedMillis, pairsPerSecond());
+        }
+    }
+
+    // pairs[i] = {origin, destination} as node ids of the graph. Unreachable pairs produce no rows.
+    public static Summary run(CompactGraph graph, int[][] pairs, int topK, Writer out, int threads) throws IOException {
+        long startTime = System.nanoTime();
+        Map<Integer, List<Integer>> byOrigin = new LinkedHashMap<>();
+        for (int[] pair : pairs) {
+            byOrigin.computeIfAbsent(pair[0], origin -> new ArrayList<>()).add(pair[1]);
+        }
+
+        TimeDependentSearch search = TimeDependentSearch.on(graph);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long rows = 0;
+        try {
+            out.write(HEADER);
+            out.write('\n');
+
+            List<Future<Integer>> groups = new ArrayList<>();
+            for (Map.Entry<Integer, List<Integer>> group : byOrigin.entrySet()) {
+                int origin = group.getKey();
+                int[] destinations = group.getValue().stream().mapToInt(Integer::intValue).toArray();
+                groups.add(executor.submit(() -> sweep(graph, search, origin, destinations, topK, out)));
+            }
+            for (Future<Integer> group : groups) {
+                rows += group.get();
+            }
+            out.flush();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("departure sweep interrupted");
+        } finally {
+            executor.shutdownNow();
+        }
+
+        double elapsedMillis = (System.nanoTime() - startTime) / 1_000_000.0;
+        return new Summary(pairs.length, byOrigin.size(), rows, elapsedMillis);
+    }
+
+    // Every ordered pair of distinct nodes.
+    public static int[][] allPairs(CompactGraph graph) {
+        int n = graph.size();
+        int[][] pairs = new int[n * (n - 1)][];
+        int next = 0;
+        for (int origin = 0; origin < n; origin++) {
+            for (int destination = 0; destination < n; destination++) {
+                if (origin != destination) {
+                    pairs[next++] = new int[]{origin, destination};
+                }
+            }
+        }
+        return pairs;
+    }
+
+    private static int sweep(CompactGraph graph, TimeDependentSearch search, int origin, int[] destinations,
+                             int topK, Writer out) {
+        TimeDependentSearch.Profile[] profiles = search.profiles(origin, destinations,
+                TimeDependentSearch.PROFILE_START, TimeDependentSearch.PROFILE_END, TimeDependentSearch.DEFAULT_STEP_MINUTES);
+
+        StringBuilder block = new StringBuilder();
+        int rows = 0;
+        for (int k = 0; k < destinations.length; k++) {
+            TimeDependentSearch.Profile profile = profiles[k];
+            int[] fastest = profile.fastest(topK);
+            for (int rank = 0; rank < fastest.length; rank++) {
+                int sample = fastest[rank];
+                block.append(csv(graph.name(origin))).append(',')
+                        .append(csv(graph.name(destinations[k]))).append(',')
+                        .append(rank + 1).append(',')
+                        .append(profile.departure(sample)).append(',')
+                        .append(profile.departure(sample).plusMinutes(TimeDependentSearch.DEFAULT_STEP_MINUTES)).append(',')
+                        .append(String.format(Locale.ROOT, "%.1f", profile.travelSeconds(sample))).append(',')
+                        .append(String.format(Locale.ROOT, "%.1f", profile.path(sample).totalDistance)).append('\n');
+                rows++;
+            }
+        }
+
+        // One write per origin keeps each group's rows together in the output.
+        synchronized (out) {
+            try {
+                out.write(block.toString());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return rows;
+    }
+
+    private static String csv(String value) {
+        if (value.indexOf(',') == -1 && value.indexOf('"') == -1) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    // Sweeps every campus pair into the given file, or standard output.
+    public static void main(String[] args) throws IOException {
+        Graph campus = CampusMap.build(new HashMap<>());
+        CompactGraph graph = campus.snapshot();
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        Writer out = args.length > 0
+                ? Files.newBufferedWriter(Paths.get(args[0]), StandardCharsets.UTF_8)
+                : new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        try {
+            Summary summary = run(graph, allPairs(graph), DEFAULT_TOP_K, out, threads);
+            System.err.println(summary);
+        } finally {
+            if (args.length > 0) {
+                out.close();
+            }
+        }
+    }
+}
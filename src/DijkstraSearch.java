@@ -0,0 +1,60 @@
+public class DijkstraSearch {
+
+    public static PathResult shortestPath(Graph graph, Nodes start, Nodes end) {
+        CompactGraph snapshot = graph.snapshot();
+        int startIndex = snapshot.indexOf(start);
+        int endIndex = snapshot.indexOf(end);
+        if (startIndex == -1 || endIndex == -1) {
+            return PathResult.notFound(snapshot, 0);
+        }
+        return shortestPath(snapshot, startIndex, endIndex);
+    }
+
+    public static PathResult shortestPath(CompactGraph graph, int start, int end) {
+        SearchScratch scratch = graph.acquireScratch();
+        try {
+            return shortestPath(graph, start, end, scratch);
+        } finally {
+            graph.releaseScratch(scratch);
+        }
+    }
+
+    private static PathResult shortestPath(CompactGraph graph, int start, int end, SearchScratch scratch) {
+        int[] offsets = graph.offsets;
+        int[] targets = graph.targets;
+        double[] weights = graph.weights;
+
+        IndexedMinHeap queue = scratch.queue;
+
+        scratch.reach(start, 0, -1);
+        queue.offer(start, 0);
+
+        int nodesSettled = 0;
+
+        while (!queue.isEmpty()) {
+            int current = queue.poll();
+            scratch.settle(current);
+            nodesSettled++;
+
+            if (current == end) {
+                return PathResult.fromPredecessors(graph, scratch.previous, end, scratch.distance(end), nodesSettled);
+            }
+
+            double currentDistance = scratch.distance(current);
+            for (int e = offsets[current]; e < offsets[current + 1]; e++) {
+                int neighbor = targets[e];
+                if (scratch.isSettled(neighbor)) {
+                    continue;
+                }
+
+                double candidate = currentDistance + weights[e];
+                if (candidate < scratch.distance(neighbor)) {
+                    scratch.reach(neighbor, candidate, current);
+                    queue.offer(neighbor, candidate);
+                }
+            }
+        }
+
+        return PathResult.notFound(graph, nodesSettled);
+    }
+}
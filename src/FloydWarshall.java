@@ -1,123 +1,190 @@
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 public class FloydWarshall {
     private static final double INF = Double.POSITIVE_INFINITY;
-    
-    public static class ShortestPathResult {
-        public double[][] distances;
-        public int[][] next;
-        public List<String> path;
-        public double totalDistance;
-        
-        public ShortestPathResult(double[][] distances, int[][] next, List<String> path, double totalDistance) {
-            this.distances = distances;
-            this.next = next;
-            this.path = path;
-            this.totalDistance = totalDistance;
+    private static final int BLOCK_SIZE = 64;
+
+    public static class ShortestPathResult extends PathResult {
+        public AllPairsShortestPaths allPairs;
+
+        public ShortestPathResult(AllPairsShortestPaths allPairs, PathResult route) {
+            super(route);
+            this.allPairs = allPairs;
         }
     }
-    
+
     public static ShortestPathResult floydWarshall(Graph graph, Nodes start, Nodes end) {
-        List<Nodes> nodesList = new ArrayList<>(graph.getNodes());
-        int n = nodesList.size();
-        
-        double[][] distances = new double[n][n];
-        int[][] next = new int[n][n];
-        
+        AllPairsShortestPaths allPairs = graph.allPairs();
+        CompactGraph snapshot = allPairs.graph();
+
+        int startIndex = snapshot.indexOf(start);
+        int endIndex = snapshot.indexOf(end);
+
+        return new ShortestPathResult(allPairs, allPairs.path(startIndex, endIndex));
+    }
+
+    // Uses the graph's matrix when one is already built for this snapshot, otherwise the snapshot's own.
+    public static ShortestPathResult floydWarshall(Graph graph, CompactGraph snapshot, int start, int end) {
+        AllPairsShortestPaths allPairs = graph.cachedAllPairs();
+        if (allPairs == null || allPairs.graph() != snapshot) {
+            allPairs = snapshot.allPairs();
+        }
+        return new ShortestPathResult(allPairs, allPairs.path(start, end));
+    }
+
+    static void initialize(CompactGraph graph, double[] distances) {
+        int n = graph.size();
+        Arrays.fill(distances, INF);
+
         for (int i = 0; i < n; i++) {
-            Arrays.fill(distances[i], INF);
-            Arrays.fill(next[i], -1);
-            distances[i][i] = 0;
+            distances[i * n + i] = 0;
         }
-        
+
         for (int i = 0; i < n; i++) {
-            Nodes node = nodesList.get(i);
-            for (Edge edge : node.edges) {
-                int j = nodesList.indexOf(edge.destination);
-                distances[i][j] = edge.weight;
-                next[i][j] = j;
+            for (int e = graph.offsets[i]; e < graph.offsets[i + 1]; e++) {
+                int j = graph.targets[e];
+                if (i == j) {
+                    continue;
+                }
+                distances[i * n + j] = Math.min(distances[i * n + j], graph.weights[e]);
             }
         }
-        
-        for (int k = 0; k < n; k++) {
-            for (int i = 0; i < n; i++) {
-                for (int j = 0; j < n; j++) {
-                    if (distances[i][k] + distances[k][j] < distances[i][j]) {
-                        distances[i][j] = distances[i][k] + distances[k][j];
-                        next[i][j] = next[i][k];
+    }
+
+    // Distances only: the tile order breaks zero-weight ties differently from phase to phase, so next
+    // hops tracked here could form cycles. AllPairsShortestPaths.nextHops derives them afterwards.
+    static void solve(double[] distances, int n) {
+        if (n <= BLOCK_SIZE) {
+            relaxTile(distances, n, 0, n, 0, n, 0, n);
+        } else {
+            solveBlocked(distances, n, BLOCK_SIZE, ForkJoinPool.commonPool());
+        }
+    }
+
+    // Three-phase tiled Floyd-Warshall: for each pivot block the diagonal tile is closed first, then
+    // the pivot row and column tiles, then every remaining tile. Tiles within a phase are independent.
+    // An interrupted caller stops between phases with a CancellationException.
+    static void solveBlocked(double[] distances, int n, int blockSize, ForkJoinPool pool) {
+        int blocks = (n + blockSize - 1) / blockSize;
+
+        for (int kb = 0; kb < blocks; kb++) {
+            checkInterrupted();
+            int kFrom = kb * blockSize;
+            int kTo = Math.min(n, kFrom + blockSize);
+
+            relaxTile(distances, n, kFrom, kTo, kFrom, kTo, kFrom, kTo);
+
+            List<TileTask> pivotLine = new ArrayList<>();
+            for (int b = 0; b < blocks; b++) {
+                if (b == kb) {
+                    continue;
+                }
+                int from = b * blockSize;
+                int to = Math.min(n, from + blockSize);
+                pivotLine.add(new TileTask(distances, n, kFrom, kTo, from, to, kFrom, kTo));
+                pivotLine.add(new TileTask(distances, n, from, to, kFrom, kTo, kFrom, kTo));
+            }
+            pool.invoke(new TileBatch(pivotLine));
+            checkInterrupted();
+
+            List<TileTask> remaining = new ArrayList<>();
+            for (int ib = 0; ib < blocks; ib++) {
+                if (ib == kb) {
+                    continue;
+                }
+                int iFrom = ib * blockSize;
+                int iTo = Math.min(n, iFrom + blockSize);
+                for (int jb = 0; jb < blocks; jb++) {
+                    if (jb == kb) {
+                        continue;
                     }
+                    int jFrom = jb * blockSize;
+                    int jTo = Math.min(n, jFrom + blockSize);
+                    remaining.add(new TileTask(distances, n, iFrom, iTo, jFrom, jTo, kFrom, kTo));
                 }
             }
+            pool.invoke(new TileBatch(remaining));
         }
-        
-        int startIndex = nodesList.indexOf(start);
-        int endIndex = nodesList.indexOf(end);
-        
-        List<String> path = reconstructPath(next, nodesList, startIndex, endIndex);
-        double totalDistance = distances[startIndex][endIndex];
-        
-        return new ShortestPathResult(distances, next, path, totalDistance);
     }
-    
-    private static List<String> reconstructPath(int[][] next, List<Nodes> nodesList, int start, int end) {
-        List<String> path = new ArrayList<>();
-        
-        if (next[start][end] == -1) {
-            return path;
-        }
-        
-        path.add(nodesList.get(start).name);
-        while (start != end) {
-            start = next[start][end];
-            path.add(nodesList.get(start).name);
+
+    private static void checkInterrupted() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("all-pairs solve interrupted");
         }
-        
-        return path;
     }
-    
-    public static List<List<String>> getAllShortestPaths(Graph graph) {
-        List<Nodes> nodesList = new ArrayList<>(graph.getNodes());
-        int n = nodesList.size();
-        
-        double[][] distances = new double[n][n];
-        int[][] next = new int[n][n];
-        
-        for (int i = 0; i < n; i++) {
-            Arrays.fill(distances[i], INF);
-            Arrays.fill(next[i], -1);
-            distances[i][i] = 0;
-        }
-        
-        for (int i = 0; i < n; i++) {
-            Nodes node = nodesList.get(i);
-            for (Edge edge : node.edges) {
-                int j = nodesList.indexOf(edge.destination);
-                distances[i][j] = edge.weight;
-                next[i][j] = j;
-            }
-        }
-        
-        for (int k = 0; k < n; k++) {
-            for (int i = 0; i < n; i++) {
-                for (int j = 0; j < n; j++) {
-                    if (distances[i][k] + distances[k][j] < distances[i][j]) {
-                        distances[i][j] = distances[i][k] + distances[k][j];
-                        next[i][j] = next[i][k];
+
+    private static void relaxTile(double[] distances, int n, int iFrom, int iTo, int jFrom, int jTo, int kFrom, int kTo) {
+        for (int k = kFrom; k < kTo; k++) {
+            int rowK = k * n;
+            for (int i = iFrom; i < iTo; i++) {
+                int rowI = i * n;
+                double throughK = distances[rowI + k];
+                if (throughK == INF) {
+                    continue;
+                }
+                for (int j = jFrom; j < jTo; j++) {
+                    double candidate = throughK + distances[rowK + j];
+                    if (candidate < distances[rowI + j]) {
+                        distances[rowI + j] = candidate;
                     }
                 }
             }
         }
-        
+    }
+
+    private static class TileTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final double[] distances;
+        private final int n, iFrom, iTo, jFrom, jTo, kFrom, kTo;
+
+        TileTask(double[] distances, int n, int iFrom, int iTo, int jFrom, int jTo, int kFrom, int kTo) {
+            this.distances = distances;
+            this.n = n;
+            this.iFrom = iFrom;
+            this.iTo = iTo;
+            this.jFrom = jFrom;
+            this.jTo = jTo;
+            this.kFrom = kFrom;
+            this.kTo = kTo;
+        }
+
+        @Override
+        protected void compute() {
+            relaxTile(distances, n, iFrom, iTo, jFrom, jTo, kFrom, kTo);
+        }
+    }
+
+    private static class TileBatch extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final List<TileTask> tiles;
+
+        TileBatch(List<TileTask> tiles) {
+            this.tiles = tiles;
+        }
+
+        @Override
+        protected void compute() {
+            ForkJoinTask.invokeAll(tiles);
+        }
+    }
+
+    public static List<List<String>> getAllShortestPaths(Graph graph) {
+        AllPairsShortestPaths allPairs = graph.allPairs();
+        int n = allPairs.graph().size();
+
         List<List<String>> allPaths = new ArrayList<>();
         for (int i = 0; i < n; i++) {
             for (int j = 0; j < n; j++) {
-                if (i != j && distances[i][j] != INF) {
-                    List<String> path = reconstructPath(next, nodesList, i, j);
-                    allPaths.add(path);
+                if (i != j && allPairs.distance(i, j) != INF) {
+                    allPaths.add(allPairs.path(i, j).names());
                 }
             }
         }
-        
+
         return allPaths;
     }
-} 
\ No newline at end of file
+}
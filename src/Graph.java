@@ -3,13 +3,21 @@ import java.util.*;
 public class Graph {
     private Set<Nodes> nodes;
     private boolean directed;
+    private volatile CompactGraph snapshot;
+    private volatile AllPairsShortestPaths allPairs;
+    // Bumped on every mutation, so caches can tell their answers are stale.
+    private volatile long version;
     Graph(boolean directed) {
         this.directed = directed;
-        nodes = new HashSet<>();
+        nodes = new LinkedHashSet<>();
     }
 
     public void addNode(Nodes... n) {
-        nodes.addAll(Arrays.asList(n));
+        if (nodes.addAll(Arrays.asList(n))) {
+            version++;
+            snapshot = null;
+            allPairs = null;
+        }
     }
 
     public void addEdge(Nodes source, Nodes destination, double weight) {
@@ -25,14 +33,31 @@ public class Graph {
     }
 
     public void addEgdeHelper(Nodes a, Nodes b, double weight) {
+        double previousWeight = Double.POSITIVE_INFINITY;
+        Edge existing = null;
         for (Edge edge : a.edges) {
             if (edge.source == a && edge.destination == b) {
-                edge.weight = weight;
-                return;
+                existing = edge;
+                break;
             }
         }
 
-        a.edges.add(new Edge(a, b, weight));
+        if (existing != null) {
+            previousWeight = existing.weight;
+            existing.weight = weight;
+        } else {
+            a.edges.add(new Edge(a, b, weight));
+        }
+        version++;
+        snapshot = null;
+
+        AllPairsShortestPaths current = allPairs;
+        if (current != null) {
+            CompactGraph updated = snapshot();
+            int u = updated.indexOf(a);
+            int v = updated.indexOf(b);
+            allPairs = u == -1 || v == -1 ? null : current.withEdgeWeight(updated, u, v, previousWeight, weight);
+        }
     }
 
     public void printEdges() {
@@ -65,102 +90,55 @@ public class Graph {
 
     }
 
-    public void resetNodesVisited() {
-        for (Nodes node : nodes) {
-            node.unvisit();
-        }
-    }
-
     public Set<Nodes> getNodes() {
-        return new HashSet<>(nodes);
+        return new LinkedHashSet<>(nodes);
     }
 
+    public long version() {
+        return version;
+    }
 
-    public String shortestPath(Nodes start, Nodes end) {
-        HashMap<Nodes, Nodes> changedAt = new HashMap<>();
-        changedAt.put(start, null);
-
-        HashMap<Nodes, Double> shortestPath = new HashMap<>();
-
-        for (Nodes node : nodes) {
-            if (node == start) {
-                shortestPath.put(node, 0.0);
-            } else {
-                shortestPath.put(node, Double.POSITIVE_INFINITY);
+    public CompactGraph snapshot() {
+        CompactGraph current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null) {
+                    current = CompactGraph.of(this);
+                    snapshot = current;
+                }
             }
         }
-        
-        for (Edge edge : start.edges) {
-            shortestPath.put(edge.destination, edge.weight);
-            changedAt.put(edge.destination, start);
-        }
-
-        start.visit();
-
-        while (true) {
-            Nodes currentNode = closestReachableUnvisited(shortestPath);
-            
-            if (currentNode == null) {
-                System.out.println("There isn't a path between " + start.name + " and " + end.name + "it is the same place.");
-                return "There isn't a path between " + start.name + " and " + end.name + "it is the same place.";
-            }
-
-            if (currentNode == end) {
-                System.out.println("The path with the smallest weight between "
-                        + start.name + " and " + end.name + " is:");
-
-                Nodes child = end;
-
-                String path = end.name;
-                while (true) {
-                    Nodes parent = changedAt.get(child);
-                    if (parent == null) {
-                        break;
-                    }
+        return current;
+    }
 
-                    path = parent.name + " ---- " + path;
-                    child = parent;
-                }
-                System.out.println(path);
-                System.out.println("Distance: " + shortestPath.get(end));
-                System.out.println(" Time taken: " + shortestPath.get(end)/2 + " seconds");
-                return path + "\n   Distance: " + shortestPath.get(end) + " " + "   \nTime taken: " + shortestPath.get(end)/2 + " seconds";
-            }
-            currentNode.visit();
-
-            for (Edge edge : currentNode.edges) {
-                if (edge.destination.isVisited())
-                    continue;
-
-                if (shortestPath.get(currentNode)
-                        + edge.weight
-                        < shortestPath.get(edge.destination)) {
-                    shortestPath.put(edge.destination,
-                            shortestPath.get(currentNode) + edge.weight);
-                    changedAt.put(edge.destination, currentNode);
+    // Solved once per snapshot on the snapshot's own lock, so snapshot() is never held up by it.
+    public AllPairsShortestPaths allPairs() {
+        AllPairsShortestPaths current = allPairs;
+        if (current == null) {
+            CompactGraph solved = snapshot();
+            current = solved.allPairs();
+            synchronized (this) {
+                if (allPairs == null && snapshot == solved) {
+                    allPairs = current;
                 }
             }
         }
-        
+        return current;
     }
 
-    private Nodes closestReachableUnvisited(HashMap<Nodes, Double> shortestPathMap) {
+    // The matrix if one is already built, without computing it.
+    AllPairsShortestPaths cachedAllPairs() {
+        return allPairs;
+    }
 
-        double shortestDistance = Double.POSITIVE_INFINITY;
-        Nodes closestReachableNode = null;
-        for (Nodes node : nodes) {
-            if (node.isVisited())
-                continue;
 
-            double currentDistance = shortestPathMap.get(node);
-            if (currentDistance == Double.POSITIVE_INFINITY)
-                continue;
+    public String shortestPath(Nodes start, Nodes end) {
+        PathResult result = DijkstraSearch.shortestPath(this, start, end);
 
-            if (currentDistance < shortestDistance) {
-                shortestDistance = currentDistance;
-                closestReachableNode = node;
-            }
+        if (!result.isFound()) {
+            return "There isn't a path between " + start.name + " and " + end.name + "it is the same place.";
         }
-        return closestReachableNode;
+        return result.render();
     }
 }
@@ -0,0 +1,159 @@
+import java.util.*;
+
+public class GraphGenerator {
+    private static final double SPACING = 100.0;
+
+    public static class Network {
+        public final Nodes[] nodes;
+        public final int[] sources;
+        public final int[] destinations;
+        public final double[] weights;
+
+        Network(Nodes[] nodes, int[] sources, int[] destinations, double[] weights) {
+            this.nodes = nodes;
+            this.sources = sources;
+            this.destinations = destinations;
+            this.weights = weights;
+        }
+
+        public int edgeCount() {
+            return sources.length;
+        }
+
+        public Graph toGraph() {
+            Graph graph = new Graph(false);
+            graph.addNode(nodes);
+            for (int e = 0; e < sources.length; e++) {
+                graph.addEdge(nodes[sources[e]], nodes[destinations[e]], weights[e]);
+            }
+            return graph;
+        }
+
+        public CompactGraph toCompactGraph() {
+            return CompactGraph.fromEdges(nodes, sources, destinations, weights, false);
+        }
+    }
+
+    // Jittered lattice with roughly SPACING metres between junctions. Horizontal streets are always kept
+    // and column 0 is always connected, so the result stays connected while other vertical links are
+    // randomly dropped and some blocks get a single diagonal, which keeps the layout planar.
+    public static Network grid(int size, long seed) {
+        Random random = new Random(seed);
+        int side = (int) Math.ceil(Math.sqrt(size));
+        Nodes[] nodes = createNodes(size, random, side);
+
+        EdgeBuffer edges = new EdgeBuffer(size * 2);
+        for (int i = 0; i < size; i++) {
+            int column = i % side;
+            if (column != side - 1 && i + 1 < size) {
+                edges.add(nodes, i, i + 1, random);
+            }
+            if (i + side < size && (column == 0 || random.nextDouble() >= 0.15)) {
+                edges.add(nodes, i, i + side, random);
+            }
+            if (column != side - 1 && i + side + 1 < size && random.nextDouble() < 0.1) {
+                edges.add(nodes, i, i + side + 1, random);
+            }
+        }
+
+        return edges.toNetwork(nodes);
+    }
+
+    // Uniform points joined to every neighbour within the radius that gives the requested mean degree.
+    public static Network randomGeometric(int size, double averageDegree, long seed) {
+        Random random = new Random(seed);
+        double extent = Math.sqrt(size) * SPACING;
+        Nodes[] nodes = new Nodes[size];
+        for (int i = 0; i < size; i++) {
+            nodes[i] = new Nodes(i, "N" + i, random.nextDouble() * extent, random.nextDouble() * extent);
+        }
+
+        double radius = Math.sqrt(averageDegree / (Math.PI * size)) * extent;
+        int cells = Math.max(1, (int) (extent / radius));
+        double cellSize = extent / cells;
+
+        int[] cellStart = new int[cells * cells + 1];
+        int[] cellOf = new int[size];
+        for (int i = 0; i < size; i++) {
+            int cx = Math.min(cells - 1, (int) (nodes[i].x / cellSize));
+            int cy = Math.min(cells - 1, (int) (nodes[i].y / cellSize));
+            cellOf[i] = cy * cells + cx;
+            cellStart[cellOf[i] + 1]++;
+        }
+        for (int c = 0; c < cells * cells; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        int[] cursor = Arrays.copyOf(cellStart, cells * cells);
+        int[] members = new int[size];
+        for (int i = 0; i < size; i++) {
+            members[cursor[cellOf[i]]++] = i;
+        }
+
+        EdgeBuffer edges = new EdgeBuffer((int) (size * averageDegree / 2) + 16);
+        double radiusSquared = radius * radius;
+        for (int i = 0; i < size; i++) {
+            int cx = cellOf[i] % cells;
+            int cy = cellOf[i] / cells;
+            for (int ny = Math.max(0, cy - 1); ny <= Math.min(cells - 1, cy + 1); ny++) {
+                for (int nx = Math.max(0, cx - 1); nx <= Math.min(cells - 1, cx + 1); nx++) {
+                    int cell = ny * cells + nx;
+                    for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                        int j = members[k];
+                        if (j <= i) {
+                            continue;
+                        }
+                        double dx = nodes[i].x - nodes[j].x;
+                        double dy = nodes[i].y - nodes[j].y;
+                        if (dx * dx + dy * dy <= radiusSquared) {
+                            edges.add(nodes, i, j, random);
+                        }
+                    }
+                }
+            }
+        }
+
+        return edges.toNetwork(nodes);
+    }
+
+    private static Nodes[] createNodes(int size, Random random, int side) {
+        Nodes[] nodes = new Nodes[size];
+        for (int i = 0; i < size; i++) {
+            double x = (i % side) * SPACING + (random.nextDouble() - 0.5) * SPACING * 0.3;
+            double y = (i / side) * SPACING + (random.nextDouble() - 0.5) * SPACING * 0.3;
+            nodes[i] = new Nodes(i, "N" + i, x, y);
+        }
+        return nodes;
+    }
+
+    private static class EdgeBuffer {
+        private int[] sources;
+        private int[] destinations;
+        private double[] weights;
+        private int count;
+
+        EdgeBuffer(int capacity) {
+            sources = new int[Math.max(16, capacity)];
+            destinations = new int[sources.length];
+            weights = new double[sources.length];
+        }
+
+        // Road length is the straight-line distance stretched by up to 30% for curves.
+        void add(Nodes[] nodes, int a, int b, Random random) {
+            if (count == sources.length) {
+                sources = Arrays.copyOf(sources, count * 2);
+                destinations = Arrays.copyOf(destinations, count * 2);
+                weights = Arrays.copyOf(weights, count * 2);
+            }
+            double length = Math.hypot(nodes[a].x - nodes[b].x, nodes[a].y - nodes[b].y);
+            sources[count] = a;
+            destinations[count] = b;
+            weights[count] = Math.max(1.0, length * (1.0 + random.nextDouble() * 0.3));
+            count++;
+        }
+
+        Network toNetwork(Nodes[] nodes) {
+            return new Network(nodes, Arrays.copyOf(sources, count), Arrays.copyOf(destinations, count),
+                    Arrays.copyOf(weights, count));
+        }
+    }
+}
@@ -0,0 +1,115 @@
+import java.util.*;
+
+public class IndexedMinHeap {
+    private int[] heap;
+    private int[] position;
+    private double[] keys;
+    private int size;
+
+    public IndexedMinHeap(int capacity) {
+        heap = new int[capacity];
+        position = new int[capacity];
+        keys = new double[capacity];
+        Arrays.fill(position, -1);
+    }
+
+    public int capacity() {
+        return heap.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int id) {
+        return position[id] != -1;
+    }
+
+    public double key(int id) {
+        return keys[id];
+    }
+
+    public double peekKey() {
+        return keys[heap[0]];
+    }
+
+    // Inserts id, or lowers its key if it is already queued. Returns false when the key was not lowered.
+    public boolean offer(int id, double key) {
+        int pos = position[id];
+        if (pos == -1) {
+            keys[id] = key;
+            heap[size] = id;
+            position[id] = size;
+            siftUp(size++);
+            return true;
+        }
+        if (key >= keys[id]) {
+            return false;
+        }
+        keys[id] = key;
+        siftUp(pos);
+        return true;
+    }
+
+    public int poll() {
+        int min = heap[0];
+        size--;
+        if (size > 0) {
+            heap[0] = heap[size];
+            position[heap[0]] = 0;
+            siftDown(0);
+        }
+        position[min] = -1;
+        return min;
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            position[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int pos) {
+        int id = heap[pos];
+        double key = keys[id];
+        while (pos > 0) {
+            int parent = (pos - 1) >>> 1;
+            int parentId = heap[parent];
+            if (keys[parentId] <= key) {
+                break;
+            }
+            heap[pos] = parentId;
+            position[parentId] = pos;
+            pos = parent;
+        }
+        heap[pos] = id;
+        position[id] = pos;
+    }
+
+    private void siftDown(int pos) {
+        int id = heap[pos];
+        double key = keys[id];
+        int half = size >>> 1;
+        while (pos < half) {
+            int child = 2 * pos + 1;
+            int right = child + 1;
+            if (right < size && keys[heap[right]] < keys[heap[child]]) {
+                child = right;
+            }
+            int childId = heap[child];
+            if (key <= keys[childId]) {
+                break;
+            }
+            heap[pos] = childId;
+            position[childId] = pos;
+            pos = child;
+        }
+        heap[pos] = id;
+        position[id] = pos;
+    }
+}
@@ -0,0 +1,193 @@
+import java.util.*;
+import java.util.concurrent.CancellationException;
+
+// Yen's loopless K shortest paths. One reverse shortest-path tree from the end is built up front and
+// shared by every spur search: its distances are an exact A* heuristic, and when the tree path from the
+// spur node avoids everything banned it is the spur path itself and no search is needed. An interrupted
+// thread stops between spurs with a CancellationException.
+public class KShortestPaths {
+    private final CompactGraph graph;
+    private final int end;
+    private final ShortestPathTree toEnd;
+    // Bans are valid while they carry the current stamp, so nothing has to be cleared between spurs.
+    private final int[] bannedNode;
+    private final int[] bannedTarget;
+    private int stamp;
+    private int currentSpur;
+
+    private KShortestPaths(CompactGraph graph, int end) {
+        this.graph = graph;
+        this.end = end;
+        this.toEnd = ShortestPathTree.towards(graph, end);
+        this.bannedNode = new int[graph.size()];
+        this.bannedTarget = new int[graph.size()];
+    }
+
+    public static List<PathResult> find(Graph graph, Nodes start, Nodes end, int k) {
+        CompactGraph snapshot = graph.snapshot();
+        int startIndex = snapshot.indexOf(start);
+        int endIndex = snapshot.indexOf(end);
+        if (startIndex == -1 || endIndex == -1) {
+            return new ArrayList<>();
+        }
+        return find(snapshot, startIndex, endIndex, k);
+    }
+
+    public static List<PathResult> find(CompactGraph graph, int start, int end, int k) {
+        return new KShortestPaths(graph, end).find(start, k);
+    }
+
+    private List<PathResult> find(int start, int k) {
+        List<PathResult> paths = new ArrayList<>();
+        if (k <= 0 || !toEnd.reaches(start)) {
+            return paths;
+        }
+
+        paths.add(toEnd.pathFrom(start));
+
+        PriorityQueue<PathResult> candidates = new PriorityQueue<>(Comparator.comparingDouble(path -> path.totalDistance));
+        Set<List<Integer>> seen = new HashSet<>();
+        seen.add(key(paths.get(0).nodeIds));
+
+        while (paths.size() < k) {
+            PathResult previous = paths.get(paths.size() - 1);
+            double rootDistance = 0;
+
+            for (int i = 0; i < previous.nodeIds.length - 1; i++) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException("k shortest paths interrupted");
+                }
+                int spur = previous.nodeIds[i];
+                stamp++;
+
+                // Root nodes other than the spur may not be revisited, and every known path sharing this
+                // root may not be repeated from the spur onward.
+                for (int j = 0; j < i; j++) {
+                    bannedNode[previous.nodeIds[j]] = stamp;
+                }
+                for (PathResult path : paths) {
+                    if (path.nodeIds.length > i + 1 && sharesRoot(path.nodeIds, previous.nodeIds, i)) {
+                        bannedTarget[path.nodeIds[i + 1]] = stamp;
+                    }
+                }
+
+                PathResult spurPath = spurPath(spur);
+                if (spurPath.isFound()) {
+                    int[] root = Arrays.copyOf(previous.nodeIds, i + 1);
+                    double[] rootLegs = Arrays.copyOf(previous.legDistances, i);
+                    PathResult candidate = PathResult.join(
+                            new PathResult(graph, root, rootLegs, rootDistance, 0), spurPath);
+                    if (seen.add(key(candidate.nodeIds))) {
+                        candidates.add(candidate);
+                    }
+                }
+
+                rootDistance += previous.legDistances[i];
+            }
+
+            if (candidates.isEmpty()) {
+                break;
+            }
+            paths.add(candidates.poll());
+        }
+
+        return paths;
+    }
+
+    private static boolean sharesRoot(int[] path, int[] other, int length) {
+        for (int i = 0; i <= length; i++) {
+            if (path[i] != other[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<Integer> key(int[] ids) {
+        List<Integer> key = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            key.add(id);
+        }
+        return key;
+    }
+
+    private boolean isBannedEdge(int source, int target) {
+        return bannedNode[target] == stamp || (source == currentSpur && bannedTarget[target] == stamp);
+    }
+
+    // Cheapest spur -> end path under the current bans.
+    private PathResult spurPath(int spur) {
+        if (!toEnd.reaches(spur)) {
+            return PathResult.notFound(graph, 0);
+        }
+        currentSpur = spur;
+
+        boolean treePathFree = true;
+        for (int at = spur; at != end; at = toEnd.previous[at]) {
+            if (isBannedEdge(at, toEnd.previous[at])) {
+                treePathFree = false;
+                break;
+            }
+        }
+        if (treePathFree) {
+            return treePath(spur, 0);
+        }
+
+        return search(spur);
+    }
+
+    // The reverse tree stores, for every node, the next hop towards the end.
+    private PathResult treePath(int from, int nodesExplored) {
+        int length = 1;
+        for (int at = from; at != end; at = toEnd.previous[at]) {
+            length++;
+        }
+        int[] ids = new int[length];
+        ids[0] = from;
+        for (int i = 1; i < length; i++) {
+            ids[i] = toEnd.previous[ids[i - 1]];
+        }
+        return PathResult.of(graph, ids, toEnd.distanceTo(from), nodesExplored);
+    }
+
+    // A* keyed on the exact unbanned distance to the end, which stays a consistent lower bound once
+    // nodes and edges are removed.
+    private PathResult search(int spur) {
+        SearchScratch scratch = graph.acquireScratch();
+        try {
+            IndexedMinHeap queue = scratch.queue;
+
+            scratch.reach(spur, 0, -1);
+            queue.offer(spur, toEnd.distanceTo(spur));
+            int nodesExplored = 0;
+
+            while (!queue.isEmpty()) {
+                int current = queue.poll();
+                scratch.settle(current);
+                nodesExplored++;
+
+                if (current == end) {
+                    return PathResult.fromPredecessors(graph, scratch.previous, end, scratch.distance(end), nodesExplored);
+                }
+
+                double currentDistance = scratch.distance(current);
+                for (int e = graph.offsets[current]; e < graph.offsets[current + 1]; e++) {
+                    int neighbor = graph.targets[e];
+                    if (scratch.isSettled(neighbor) || isBannedEdge(current, neighbor) || !toEnd.reaches(neighbor)) {
+                        continue;
+                    }
+
+                    double candidate = currentDistance + graph.weights[e];
+                    if (candidate < scratch.distance(neighbor)) {
+                        scratch.reach(neighbor, candidate, current);
+                        queue.offer(neighbor, candidate + toEnd.distanceTo(neighbor));
+                    }
+                }
+            }
+
+            return PathResult.notFound(graph, nodesExplored);
+        } finally {
+            graph.releaseScratch(scratch);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+import java.util.*;
+
+// ALT preprocessing: exact distances to and from a few landmarks give triangle-inequality lower
+// bounds d(v, t) >= d(L, t) - d(L, v) and d(v, t) >= d(v, L) - d(t, L) for A*.
+public class LandmarkIndex implements AStarSearch.Heuristic {
+    static final int DEFAULT_LANDMARKS = 8;
+    private static final double INF = Double.POSITIVE_INFINITY;
+
+    final CompactGraph graph;
+    final int[] landmarks;
+    // Row-major by node, so the k values for one node sit together: [node * k + landmark].
+    final double[] fromLandmark;
+    final double[] toLandmark;
+
+    private LandmarkIndex(CompactGraph graph, int[] landmarks, double[] fromLandmark, double[] toLandmark) {
+        this.graph = graph;
+        this.landmarks = landmarks;
+        this.fromLandmark = fromLandmark;
+        this.toLandmark = toLandmark;
+    }
+
+    // Farthest-point selection: each new landmark is the node furthest from all landmarks chosen so far.
+    public static LandmarkIndex build(CompactGraph graph, int count) {
+        int n = graph.size();
+        int k = Math.min(count, n);
+        CompactGraph reverse = graph.reverse();
+
+        double[] closest = new double[n];
+        Arrays.fill(closest, INF);
+        int[] chosen = new int[k];
+        double[][] from = new double[k][];
+        double[][] to = new double[k][];
+
+        int selected = 0;
+        int next = n == 0 ? -1 : farthest(ShortestPathTree.from(graph, 0).distances, chosen, 0);
+        while (selected < k && next != -1) {
+            ShortestPathTree forward = ShortestPathTree.from(graph, next);
+            chosen[selected] = next;
+            from[selected] = forward.distances;
+            to[selected] = ShortestPathTree.from(reverse, next).distances;
+            selected++;
+
+            for (int v = 0; v < n; v++) {
+                closest[v] = Math.min(closest[v], forward.distances[v]);
+            }
+            next = farthest(closest, chosen, selected);
+        }
+
+        double[] fromLandmark = new double[n * selected];
+        double[] toLandmark = new double[n * selected];
+        for (int l = 0; l < selected; l++) {
+            for (int v = 0; v < n; v++) {
+                fromLandmark[v * selected + l] = from[l][v];
+                toLandmark[v * selected + l] = to[l][v];
+            }
+        }
+
+        return new LandmarkIndex(graph, Arrays.copyOf(chosen, selected), fromLandmark, toLandmark);
+    }
+
+    // Node with the largest finite distance that is not already a landmark, -1 once every reachable
+    // node is a landmark. The first pick falls back to node 0 when nothing else is reachable.
+    private static int farthest(double[] distances, int[] exclude, int excluded) {
+        int best = -1;
+        double bestDistance = 0;
+        for (int v = 0; v < distances.length; v++) {
+            double distance = distances[v];
+            if (distance != INF && distance > bestDistance && !contains(exclude, excluded, v)) {
+                best = v;
+                bestDistance = distance;
+            }
+        }
+        return best == -1 && excluded == 0 && distances.length > 0 ? 0 : best;
+    }
+
+    private static boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int[] landmarks() {
+        return landmarks.clone();
+    }
+
+    @Override
+    public double estimate(CompactGraph graph, int node, int goal) {
+        int k = landmarks.length;
+        int nodeRow = node * k;
+        int goalRow = goal * k;
+
+        double best = 0;
+        for (int l = 0; l < k; l++) {
+            double landmarkToGoal = fromLandmark[goalRow + l];
+            double landmarkToNode = fromLandmark[nodeRow + l];
+            if (landmarkToGoal != INF && landmarkToNode != INF && landmarkToGoal - landmarkToNode > best) {
+                best = landmarkToGoal - landmarkToNode;
+            }
+
+            double nodeToLandmark = toLandmark[nodeRow + l];
+            double goalToLandmark = toLandmark[goalRow + l];
+            if (nodeToLandmark != INF && goalToLandmark != INF && nodeToLandmark - goalToLandmark > best) {
+                best = nodeToLandmark - goalToLandmark;
+            }
+        }
+        return best;
+    }
+}
@@ -3,27 +3,23 @@ import java.util.*;
 public class Nodes{
     int n;
     String name;
-    private boolean visited;
+    double x;
+    double y;
     LinkedList<Edge> edges;
 
     public Nodes (int n, String nameOfLocation) {
+        this(n, nameOfLocation, Double.NaN, Double.NaN);
+    }
+
+    public Nodes (int n, String nameOfLocation, double x, double y) {
         this.n = n;
         this.name = nameOfLocation;
-        visited = false;
+        this.x = x;
+        this.y = y;
         edges = new LinkedList<>();
     }
 
-    boolean isVisited() {
-        return visited;
-    }
-
-    void visit() {
-
-        visited = true;
-    }
-
-    void unvisit() {
-
-        visited = false;
+    boolean hasCoordinates() {
+        return !Double.isNaN(x) && !Double.isNaN(y);
     }
 }
@@ -0,0 +1,85 @@
+import java.util.*;
+
+public class PathResult {
+    private static final int[] NO_NODES = new int[0];
+    private static final double[] NO_LEGS = new double[0];
+
+    public final int[] nodeIds;
+    public final double[] legDistances;
+    public final double totalDistance;
+    public final int nodesExplored;
+    final CompactGraph graph;
+
+    public PathResult(CompactGraph graph, int[] nodeIds, double[] legDistances, double totalDistance, int nodesExplored) {
+        this.graph = graph;
+        this.nodeIds = nodeIds;
+        this.legDistances = legDistances;
+        this.totalDistance = totalDistance;
+        this.nodesExplored = nodesExplored;
+    }
+
+    protected PathResult(PathResult other) {
+        this(other.graph, other.nodeIds, other.legDistances, other.totalDistance, other.nodesExplored);
+    }
+
+    public static PathResult notFound(CompactGraph graph, int nodesExplored) {
+        return new PathResult(graph, NO_NODES, NO_LEGS, Double.POSITIVE_INFINITY, nodesExplored);
+    }
+
+    public static PathResult of(CompactGraph graph, int[] nodeIds, double totalDistance, int nodesExplored) {
+        double[] legs = new double[Math.max(0, nodeIds.length - 1)];
+        for (int i = 0; i < legs.length; i++) {
+            legs[i] = graph.edgeWeight(nodeIds[i], nodeIds[i + 1]);
+        }
+        return new PathResult(graph, nodeIds, legs, totalDistance, nodesExplored);
+    }
+
+    public static PathResult fromPredecessors(CompactGraph graph, int[] previous, int end, double totalDistance, int nodesExplored) {
+        int length = 0;
+        for (int at = end; at != -1; at = previous[at]) {
+            length++;
+        }
+
+        int[] ids = new int[length];
+        for (int at = end, i = length - 1; at != -1; at = previous[at], i--) {
+            ids[i] = at;
+        }
+        return of(graph, ids, totalDistance, nodesExplored);
+    }
+
+    public static PathResult join(PathResult first, PathResult second) {
+        if (!first.isFound() || !second.isFound()) {
+            return notFound(first.graph, first.nodesExplored + second.nodesExplored);
+        }
+
+        int[] ids = Arrays.copyOf(first.nodeIds, first.nodeIds.length + second.nodeIds.length - 1);
+        System.arraycopy(second.nodeIds, 1, ids, first.nodeIds.length, second.nodeIds.length - 1);
+
+        double[] legs = Arrays.copyOf(first.legDistances, first.legDistances.length + second.legDistances.length);
+        System.arraycopy(second.legDistances, 0, legs, first.legDistances.length, second.legDistances.length);
+
+        return new PathResult(first.graph, ids, legs, first.totalDistance + second.totalDistance,
+                first.nodesExplored + second.nodesExplored);
+    }
+
+    public boolean isFound() {
+        return nodeIds.length > 0;
+    }
+
+    public int start() {
+        return nodeIds[0];
+    }
+
+    public int end() {
+        return nodeIds[nodeIds.length - 1];
+    }
+
+    public List<String> names() {
+        return graph.names(nodeIds);
+    }
+
+    public String render() {
+        String path = String.join(" ---- ", names());
+        return path + "\n   Distance: " + totalDistance + " " + "   \nTime taken: " + totalDistance/2 + " seconds";
+    }
+}
@@ -0,0 +1,333 @@
+import java.lang.management.ManagementFactory;
+import java.util.*;
+
+public class RouteBenchmark {
+    private static final long WARMUP_NANOS = 500_000_000L;
+    private static final int MEASURE_BATCHES = 5;
+    private static final long BATCH_NANOS = 200_000_000L;
+    private static final int ALL_PAIRS_LIMIT = 2000;
+    private static final int DIVIDE_AND_CONQUER_LIMIT = 2000;
+    private static final int CONTRACTION_LIMIT = 50000;
+    private static final long SEED = 42L;
+
+    private static volatile double sink;
+    private static final com.sun.management.ThreadMXBean THREADS = allocationCounter();
+
+    interface Operation {
+        double run(int iteration);
+    }
+
+    public static void main(String[] args) {
+        int[] sizes = {1000, 10000, 100000};
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        checkTiledAllPairs(300, SEED);
+
+        Map<String, Nodes> locationNodes = new HashMap<>();
+        Graph campus = CampusMap.build(locationNodes);
+        runGraphSuite("campus (" + campus.getNodes().size() + " nodes)", campus);
+
+        for (int size : sizes) {
+            runGraphSuite("synthetic grid (" + size + " nodes)", GraphGenerator.grid(size, SEED).toGraph());
+            runGraphSuite("random geometric (" + size + " nodes)", GraphGenerator.randomGeometric(size, 6.0, SEED).toGraph());
+        }
+
+        runSortingSuite(1000);
+    }
+
+    private static void runGraphSuite(String label, Graph graph) {
+        System.out.println("=== " + label + " ===");
+
+        CompactGraph snapshot = graph.snapshot();
+        Nodes[] nodes = snapshot.nodes;
+        int[][] pairs = queryPairs(snapshot.size(), 1024, SEED);
+
+        report("Graph.shortestPath", measure(i -> {
+            int[] pair = pairs[i % pairs.length];
+            return graph.shortestPath(nodes[pair[0]], nodes[pair[1]]).length();
+        }));
+        report("DijkstraSearch.shortestPath", measure(i -> {
+            int[] pair = pairs[i % pairs.length];
+            return DijkstraSearch.shortestPath(graph, nodes[pair[0]], nodes[pair[1]]).totalDistance;
+        }));
+        report("AStarSearch.aStarSearch", measure(i -> {
+            int[] pair = pairs[i % pairs.length];
+            return AStarSearch.aStarSearch(graph, nodes[pair[0]], nodes[pair[1]]).totalDistance;
+        }));
+        report("BidirectionalSearch.dijkstra", measure(i -> {
+            int[] pair = pairs[i % pairs.length];
+            return BidirectionalSearch.dijkstra(graph, nodes[pair[0]], nodes[pair[1]]).totalDistance;
+        }));
+        report("BidirectionalSearch.aStar", measure(i -> {
+            int[] pair = pairs[i % pairs.length];
+            return BidirectionalSearch.aStar(graph, nodes[pair[0]], nodes[pair[1]]).totalDistance;
+        }));
+        long buildStart = System.nanoTime();
+        snapshot.landmarks();
+        System.out.println(String.format("%-42s %14.1f ms (once)", "LandmarkIndex.build",
+                (System.nanoTime() - buildStart) / 1_000_000.0));
+        report("AStarSearch.altSearch", measure(i -> {
+            int[] pair = pairs[i % pairs.length];
+            return AStarSearch.altSearch(graph, nodes[pair[0]], nodes[pair[1]]).totalDistance;
+        }));
+        if (snapshot.size() <= CONTRACTION_LIMIT) {
+            buildStart = System.nanoTime();
+            ContractionHierarchy hierarchy = snapshot.contractionHierarchy();
+            System.out.println(String.format("%-42s %14.1f ms (once, %d shortcuts)", "ContractionHierarchy.build",
+                    (System.nanoTime() - buildStart) / 1_000_000.0, hierarchy.shortcutCount()));
+            report("ContractionHierarchy.shortestPath", measure(i -> {
+                int[] pair = pairs[i % pairs.length];
+                return hierarchy.shortestPath(pair[0], pair[1]).totalDistance;
+            }));
+        } else {
+            skip("ContractionHierarchy.build", CONTRACTION_LIMIT);
+        }
+        report("RouteOptimizer.applyGreedyAlgorithm", measure(i -> {
+            int[] pair = pairs[i % pairs.length];
+            return RouteOptimizer.applyGreedyAlgorithm(graph, nodes[pair[0]], nodes[pair[1]]).distance;
+        }));
+
+        compareHeuristics(snapshot, pairs);
+
+        if (snapshot.size() <= ALL_PAIRS_LIMIT) {
+            report("AllPairsShortestPaths.compute", measure(i -> AllPairsShortestPaths.compute(snapshot).distance(0, 0)));
+            graph.allPairs();
+            report("FloydWarshall.floydWarshall (cached)", measure(i -> {
+                int[] pair = pairs[i % pairs.length];
+                return FloydWarshall.floydWarshall(graph, nodes[pair[0]], nodes[pair[1]]).totalDistance;
+            }));
+        } else {
+            skip("FloydWarshall.floydWarshall", ALL_PAIRS_LIMIT);
+        }
+
+        if (snapshot.size() <= DIVIDE_AND_CONQUER_LIMIT) {
+            report("RouteOptimizer.applyDivideAndConquer", measure(i -> {
+                int[] pair = pairs[i % pairs.length];
+                return RouteOptimizer.applyDivideAndConquer(graph, nodes[pair[0]], nodes[pair[1]]).size();
+            }));
+            report("RouteOptimizer.findOptimalRoutes", measure(i -> {
+                int[] pair = pairs[i % pairs.length];
+                return RouteOptimizer.findOptimalRoutes(graph, nodes[pair[0]], nodes[pair[1]], new ArrayList<>()).routes.size();
+            }));
+            report("RouteOptimizer.findOptimalRoutesInParallel", measure(i -> {
+                int[] pair = pairs[i % pairs.length];
+                return RouteOptimizer.findOptimalRoutesInParallel(graph, nodes[pair[0]], nodes[pair[1]], new ArrayList<>()).routes.size();
+            }));
+            RouteCache<RouteOptimizer.RouteAnalysis> cache = RouteOptimizer.analysisCache();
+            cache.clear();
+            long hitsBefore = cache.hits();
+            long missesBefore = cache.misses();
+            report("RouteOptimizer.findOptimalRoutesCached", measure(i -> {
+                int[] pair = pairs[i % pairs.length];
+                return RouteOptimizer.findOptimalRoutesCached(graph, nodes[pair[0]], nodes[pair[1]], "standard").routes.size();
+            }));
+            System.out.println(String.format("%-42s %d hits, %d misses", "  route cache",
+                    cache.hits() - hitsBefore, cache.misses() - missesBefore));
+        } else {
+            skip("RouteOptimizer.applyDivideAndConquer", DIVIDE_AND_CONQUER_LIMIT);
+            skip("RouteOptimizer.findOptimalRoutes", ALL_PAIRS_LIMIT);
+            skip("RouteOptimizer.findOptimalRoutesInParallel", ALL_PAIRS_LIMIT);
+            skip("RouteOptimizer.findOptimalRoutesCached", ALL_PAIRS_LIMIT);
+        }
+
+        System.out.println();
+    }
+
+    // Not timed: average nodes expanded by A* per heuristic, and how many routes came back longer than Dijkstra's.
+    private static void compareHeuristics(CompactGraph snapshot, int[][] pairs) {
+        String[] names = {"none", "node index", "euclidean", "landmarks (ALT)"};
+        AStarSearch.Heuristic[] heuristics = {AStarSearch.NONE, AStarSearch.NODE_INDEX, AStarSearch.EUCLIDEAN, snapshot.landmarks()};
+        int queries = Math.min(pairs.length, 256);
+
+        double[] optimal = new double[queries];
+        for (int q = 0; q < queries; q++) {
+            optimal[q] = DijkstraSearch.shortestPath(snapshot, pairs[q][0], pairs[q][1]).totalDistance;
+        }
+
+        for (int h = 0; h < heuristics.length; h++) {
+            long explored = 0;
+            int longer = 0;
+            for (int q = 0; q < queries; q++) {
+                PathResult result = AStarSearch.aStarSearch(snapshot, pairs[q][0], pairs[q][1], heuristics[h]);
+                explored += result.nodesExplored;
+                if (result.totalDistance > optimal[q] * (1 + 1e-9)) {
+                    longer++;
+                }
+            }
+            System.out.println(String.format("%-42s %14.1f nodes/query  %d/%d longer than optimal",
+                    "A* heuristic: " + names[h], (double) explored / queries, longer, queries));
+        }
+    }
+
+    // Not timed: the tiled all-pairs solve against the plain i-k-j loop on random graphs just above the
+    // tile size, with weights in {0, 1, 2} so zero-weight ties are common. Every path must also terminate.
+    private static void checkTiledAllPairs(int graphs, long seed) {
+        Random random = new Random(seed);
+        int mismatched = 0;
+        int broken = 0;
+        for (int g = 0; g < graphs; g++) {
+            int n = 65 + random.nextInt(40);
+            int m = 3 * n;
+            Nodes[] nodes = new Nodes[n];
+            for (int i = 0; i < n; i++) {
+                nodes[i] = new Nodes(i, "n" + i);
+            }
+            int[] sources = new int[m];
+            int[] destinations = new int[m];
+            double[] weights = new double[m];
+            for (int e = 0; e < m; e++) {
+                sources[e] = random.nextInt(n);
+                destinations[e] = random.nextInt(n);
+                weights[e] = random.nextInt(3);
+            }
+            CompactGraph graph = CompactGraph.fromEdges(nodes, sources, destinations, weights, random.nextBoolean());
+
+            double[] naive = new double[n * n];
+            FloydWarshall.initialize(graph, naive);
+            for (int k = 0; k < n; k++) {
+                for (int i = 0; i < n; i++) {
+                    for (int j = 0; j < n; j++) {
+                        naive[i * n + j] = Math.min(naive[i * n + j], naive[i * n + k] + naive[k * n + j]);
+                    }
+                }
+            }
+
+            AllPairsShortestPaths tiled = AllPairsShortestPaths.compute(graph);
+            if (!Arrays.equals(naive, tiled.distances)) {
+                mismatched++;
+            }
+            try {
+                for (int i = 0; i < n; i++) {
+                    for (int j = 0; j < n; j++) {
+                        PathResult path = tiled.path(i, j);
+                        if (path.isFound() != (i != j && naive[i * n + j] != Double.POSITIVE_INFINITY)) {
+                            throw new IllegalStateException("path " + i + " -> " + j + " disagrees with its distance");
+                        }
+                    }
+                }
+            } catch (IllegalStateException e) {
+                broken++;
+            }
+        }
+        System.out.println(String.format("%-42s %d/%d distances differ, %d/%d with broken paths",
+                "Floyd-Warshall tiled vs naive (0-weights)", mismatched, graphs, broken, graphs));
+        System.out.println();
+    }
+
+    private static void runSortingSuite(int count) {
+        System.out.println("=== sorting (" + count + " routes) ===");
+
+        Random random = new Random(SEED);
+        List<SortingAlgorithms.Route> routes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            double distance = 100 + random.nextDouble() * 5000;
+            routes.add(new SortingAlgorithms.Route(new ArrayList<>(), distance, distance / 2, "Benchmark"));
+        }
+
+        report("SortingAlgorithms.sortByDistance", measure(i -> {
+            List<SortingAlgorithms.Route> copy = new ArrayList<>(routes);
+            SortingAlgorithms.sortByDistance(copy);
+            return copy.get(0).distance;
+        }));
+        report("SortingAlgorithms.mergeSort", measure(i -> {
+            List<SortingAlgorithms.Route> copy = new ArrayList<>(routes);
+            SortingAlgorithms.mergeSort(copy);
+            return copy.get(0).distance;
+        }));
+        report("SortingAlgorithms.sortByTime", measure(i -> {
+            List<SortingAlgorithms.Route> copy = new ArrayList<>(routes);
+            SortingAlgorithms.sortByTime(copy);
+            return copy.get(0).time;
+        }));
+
+        System.out.println();
+    }
+
+    // Runs op for a warmup period, then in timed batches; returns {mean ns/op, stddev ns/op, ops, bytes/op}.
+    // Bytes are those allocated by the calling thread, -1 when the JVM cannot count them.
+    static double[] measure(Operation op) {
+        int iteration = 0;
+        long warmupEnd = System.nanoTime() + WARMUP_NANOS;
+        do {
+            sink += op.run(iteration++);
+        } while (System.nanoTime() < warmupEnd);
+
+        double[] batchNanosPerOp = new double[MEASURE_BATCHES];
+        long totalOps = 0;
+        long allocatedBefore = allocatedBytes();
+        for (int batch = 0; batch < MEASURE_BATCHES; batch++) {
+            long ops = 0;
+            long start = System.nanoTime();
+            long elapsed;
+            do {
+                sink += op.run(iteration++);
+                ops++;
+                elapsed = System.nanoTime() - start;
+            } while (elapsed < BATCH_NANOS);
+            batchNanosPerOp[batch] = (double) elapsed / ops;
+            totalOps += ops;
+        }
+        long allocatedAfter = allocatedBytes();
+        double bytesPerOp = allocatedBefore < 0 ? -1 : (double) (allocatedAfter - allocatedBefore) / totalOps;
+
+        double mean = 0;
+        for (double value : batchNanosPerOp) {
+            mean += value;
+        }
+        mean /= MEASURE_BATCHES;
+
+        double variance = 0;
+        for (double value : batchNanosPerOp) {
+            variance += (value - mean) * (value - mean);
+        }
+        return new double[]{mean, Math.sqrt(variance / MEASURE_BATCHES), totalOps, bytesPerOp};
+    }
+
+    // The per-thread allocation counter that JMH's gc profiler also reads.
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) threads;
+            if (counter.isThreadAllocatedMemorySupported()) {
+                counter.setThreadAllocatedMemoryEnabled(true);
+                return counter;
+            }
+        }
+        return null;
+    }
+
+    private static long allocatedBytes() {
+        return THREADS == null ? -1 : THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static void report(String name, double[] result) {
+        String allocation = result[3] < 0 ? "" : String.format("  %10.0f B/op", result[3]);
+        System.out.println(String.format("%-42s %14.1f ns/op  +/- %10.1f  (%d ops)%s",
+                name, result[0], result[1], (long) result[2], allocation));
+    }
+
+    private static void skip(String name, int limit) {
+        System.out.println(String.format("%-42s skipped above %d nodes", name, limit));
+    }
+
+    static int[][] queryPairs(int size, int count, long seed) {
+        Random random = new Random(seed);
+        int[][] pairs = new int[count][];
+        for (int i = 0; i < count; i++) {
+            int start = random.nextInt(size);
+            int end = random.nextInt(size);
+            if (size > 1) {
+                while (end == start) {
+                    end = random.nextInt(size);
+                }
+            }
+            pairs[i] = new int[]{start, end};
+        }
+        return pairs;
+    }
+}
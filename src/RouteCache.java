@@ -0,0 +1,168 @@
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+// Bounded cache of route answers. Keys carry the graph and traffic versions current at lookup time, so
+// an edge change or a traffic-factor change makes every older entry unreachable; those entries then
+// age out through the size bound or the time-to-live.
+public class RouteCache<V> {
+    public static final int DEFAULT_CAPACITY = 1024;
+    public static final long DEFAULT_TTL_MILLIS = 5 * 60 * 1000L;
+
+    private final int capacity;
+    private final long ttlNanos;
+    private final LinkedHashMap<Key, Entry<V>> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+
+    public RouteCache() {
+        this(DEFAULT_CAPACITY, DEFAULT_TTL_MILLIS);
+    }
+
+    public RouteCache(int capacity, long ttlMillis) {
+        this.capacity = capacity;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        // Access order, so the eldest entry is the least recently used one.
+        this.entries = new LinkedHashMap<Key, Entry<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry<V>> eldest) {
+                if (size() > RouteCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // Returns the cached value or computes and stores it. The computation runs outside the lock, so two
+    // threads missing on the same key may both compute; the later one wins. A computation that was
+    // interrupted part-way is returned but not stored.
+    public V get(Graph graph, Nodes start, Nodes end, String algorithm, String profile, Supplier<V> compute) {
+        return get(graph, start, end, algorithm, profile, compute, value -> true);
+    }
+
+    // As above, but only stores values the predicate accepts, e.g. to keep degraded answers out.
+    public V get(Graph graph, Nodes start, Nodes end, String algorithm, String profile, Supplier<V> compute,
+                 Predicate<V> cacheable) {
+        Key key = new Key(graph, start, end, algorithm, profile);
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                if (System.nanoTime() - entry.createdNanos <= ttlNanos) {
+                    hits++;
+                    return entry.value;
+                }
+                entries.remove(key);
+                expirations++;
+            }
+            misses++;
+        }
+
+        V value = compute.get();
+        if (value != null && !Thread.currentThread().isInterrupted() && cacheable.test(value)) {
+            synchronized (entries) {
+                entries.put(key, new Entry<>(value, System.nanoTime()));
+            }
+        }
+        return value;
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long hits() {
+        synchronized (entries) {
+            return hits;
+        }
+    }
+
+    public long misses() {
+        synchronized (entries) {
+            return misses;
+        }
+    }
+
+    // Entries dropped to stay within capacity.
+    public long evictions() {
+        synchronized (entries) {
+            return evictions;
+        }
+    }
+
+    // Entries found past their time-to-live.
+    public long expirations() {
+        synchronized (entries) {
+            return expirations;
+        }
+    }
+
+    public double hitRate() {
+        synchronized (entries) {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+    }
+
+    private static class Entry<V> {
+        final V value;
+        final long createdNanos;
+
+        Entry(V value, long createdNanos) {
+            this.value = value;
+            this.createdNanos = createdNanos;
+        }
+    }
+
+    private static class Key {
+        final Graph graph;
+        final Nodes start;
+        final Nodes end;
+        final String algorithm;
+        final String profile;
+        final long graphVersion;
+        final long trafficVersion;
+
+        Key(Graph graph, Nodes start, Nodes end, String algorithm, String profile) {
+            this.graph = graph;
+            this.start = start;
+            this.end = end;
+            this.algorithm = algorithm;
+            this.profile = profile;
+            this.graphVersion = graph.version();
+            this.trafficVersion = TrafficSimulator.version();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof Key)) return false;
+            Key other = (Key) obj;
+            return graph == other.graph && start == other.start && end == other.end
+                    && graphVersion == other.graphVersion && trafficVersion == other.trafficVersion
+                    && algorithm.equals(other.algorithm) && profile.equals(other.profile);
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = System.identityHashCode(graph);
+            hash = hash * 31 + System.identityHashCode(start);
+            hash = hash * 31 + System.identityHashCode(end);
+            hash = hash * 31 + algorithm.hashCode();
+            hash = hash * 31 + profile.hashCode();
+            hash = hash * 31 + Long.hashCode(graphVersion);
+            return hash * 31 + Long.hashCode(trafficVersion);
+        }
+    }
+}
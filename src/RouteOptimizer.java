@@ -1,94 +1,272 @@
+import java.time.LocalTime;
 import java.util.*;
+import java.util.concurrent.*;
 
 public class RouteOptimizer {
+    public static final long DEFAULT_TIMEOUT_MILLIS = 2000;
+    // Joins the names of the algorithms that found the same route.
+    public static final String ALGORITHM_SEPARATOR = ", ";
+    
+    private static final RouteCache<RouteAnalysis> ANALYSIS_CACHE = new RouteCache<>();
+    
+    // Bounded, so searches left behind by timeouts cannot pile up threads; extra work waits in the queue.
+    private static final int PARALLEL_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private static final ExecutorService PARALLEL_POOL = newParallelPool();
+    
+    private static ExecutorService newParallelPool() {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(PARALLEL_THREADS, PARALLEL_THREADS, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), task -> {
+                    Thread thread = new Thread(task, "route-optimizer");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
     
     public static class RouteAnalysis {
         public List<SortingAlgorithms.Route> routes;
         public SortingAlgorithms.Route optimalRoute;
         public Map<String, Double> algorithmPerformance;
+        public Map<String, Integer> nodesSettled;
+        public List<String> timedOutAlgorithms;
         public List<String> landmarks;
         public double trafficFactor;
         
         public RouteAnalysis() {
             this.routes = new ArrayList<>();
             this.algorithmPerformance = new HashMap<>();
+            this.nodesSettled = new HashMap<>();
+            this.timedOutAlgorithms = new ArrayList<>();
             this.landmarks = new ArrayList<>();
             this.trafficFactor = 1.0;
         }
+        
+        // False when some algorithm timed out and is missing from the comparison.
+        public boolean isComplete() {
+            return timedOutAlgorithms.isEmpty();
+        }
     }
     
     public static RouteAnalysis findOptimalRoutes(Graph graph, Nodes start, Nodes end, List<String> landmarks) {
         RouteAnalysis analysis = new RouteAnalysis();
+        analysis.landmarks = landmarks;
         
-        long startTime = System.currentTimeMillis();
+        CompactGraph snapshot = graph.snapshot();
+        int startIndex = snapshot.indexOf(start);
+        int endIndex = snapshot.indexOf(end);
+        if (startIndex == -1 || endIndex == -1) {
+            return analysis;
+        }
         
-        String dijkstraPath = graph.shortestPath(start, end);
-        long dijkstraTime = System.currentTimeMillis() - startTime;
+        for (Map.Entry<String, RouteSearch> algorithm : algorithms(graph, landmarks).entrySet()) {
+            long startTime = System.nanoTime();
+            PathResult result = algorithm.getValue().run(snapshot, startIndex, endIndex);
+            record(analysis, algorithm.getKey(), result, elapsedMillis(startTime));
+        }
         
-        startTime = System.currentTimeMillis();
-        FloydWarshall.ShortestPathResult floydResult = FloydWarshall.floydWarshall(graph, start, end);
-        long floydTime = System.currentTimeMillis() - startTime;
+        analysis.optimalRoute = SortingAlgorithms.findOptimalRoute(analysis.routes);
+        return analysis;
+    }
+    
+    public static RouteAnalysis findOptimalRoutesInParallel(Graph graph, Nodes start, Nodes end, List<String> landmarks) {
+        return findOptimalRoutesInParallel(graph, start, end, landmarks, new HashMap<>());
+    }
+    
+    // Runs every algorithm at once on the same snapshot. An algorithm that misses its timeout (measured
+    // from when its search starts running, DEFAULT_TIMEOUT_MILLIS unless listed) is left out of the
+    // analysis and named in timedOutAlgorithms; its search is interrupted, and the long-running ones
+    // (Floyd-Warshall, k shortest paths) stop at their next check. Time spent queued behind other
+    // callers' searches does not count.
+    public static RouteAnalysis findOptimalRoutesInParallel(Graph graph, Nodes start, Nodes end, List<String> landmarks,
+                                                            Map<String, Long> timeoutMillis) {
+        return findOptimalRoutesInParallel(graph, start, end, landmarks, timeoutMillis, null);
+    }
+    
+    // As above, and reports each algorithm to the listener as soon as it finishes, fastest first. The
+    // listener is called from the search threads, and never for a search that timed out or was cancelled.
+    public static RouteAnalysis findOptimalRoutesInParallel(Graph graph, Nodes start, Nodes end, List<String> landmarks,
+                                                            Map<String, Long> timeoutMillis, ProgressListener listener) {
+        RouteAnalysis analysis = new RouteAnalysis();
+        analysis.landmarks = landmarks;
         
-        startTime = System.currentTimeMillis();
-        AStarSearch.AStarResult aStarResult = AStarSearch.aStarSearch(graph, start, end);
-        long aStarTime = System.currentTimeMillis() - startTime;
+        CompactGraph snapshot = graph.snapshot();
+        int startIndex = snapshot.indexOf(start);
+        int endIndex = snapshot.indexOf(end);
+        if (startIndex == -1 || endIndex == -1) {
+            return analysis;
+        }
         
-        analysis.algorithmPerformance.put("Dijkstra", (double) dijkstraTime);
-        analysis.algorithmPerformance.put("Floyd-Warshall", (double) floydTime);
-        analysis.algorithmPerformance.put("A*", (double) aStarTime);
+        Map<String, SearchTask> running = new LinkedHashMap<>();
+        for (Map.Entry<String, RouteSearch> algorithm : algorithms(graph, landmarks).entrySet()) {
+            String name = algorithm.getKey();
+            RouteSearch search = algorithm.getValue();
+            SearchTask task = new SearchTask(name, () -> {
+                long searchStart = System.nanoTime();
+                PathResult result = search.run(snapshot, startIndex, endIndex);
+                return new TimedResult(result, elapsedMillis(searchStart));
+            }, listener);
+            running.put(name, task);
+            PARALLEL_POOL.execute(task);
+        }
         
-        if (!dijkstraPath.contains("There isn't a path")) {
-            String[] dijkstraParts = dijkstraPath.split("----");
-            List<String> dijkstraPathList = new ArrayList<>();
-            for (String part : dijkstraParts) {
-                dijkstraPathList.add(part.trim());
+        try {
+            for (Map.Entry<String, SearchTask> entry : running.entrySet()) {
+                String name = entry.getKey();
+                SearchTask task = entry.getValue();
+                long timeoutNanos = timeoutMillis.getOrDefault(name, DEFAULT_TIMEOUT_MILLIS) * 1_000_000L;
+                while (true) {
+                    // Until the search starts, wait a whole timeout at a time and look again.
+                    long wait = task.started ? task.startNanos + timeoutNanos - System.nanoTime() : timeoutNanos;
+                    try {
+                        TimedResult timed = task.get(Math.max(0, wait), TimeUnit.NANOSECONDS);
+                        record(analysis, name, timed.result, timed.millis);
+                        break;
+                    } catch (TimeoutException e) {
+                        // cancel fails when the search finished meanwhile; the next get returns its result.
+                        if (task.started && System.nanoTime() - task.startNanos >= timeoutNanos && task.cancel(true)) {
+                            analysis.timedOutAlgorithms.add(name);
+                            break;
+                        }
+                    }
+                }
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // Nothing may keep using the shared pool once the caller has its answer or has given up.
+            for (SearchTask task : running.values()) {
+                task.cancel(true);
             }
-            double dijkstraDistance = extractDistance(dijkstraPath);
-            analysis.routes.add(new SortingAlgorithms.Route(dijkstraPathList, dijkstraDistance, dijkstraDistance/2, "Dijkstra"));
         }
         
-        if (!floydResult.path.isEmpty()) {
-            double floydDistance = floydResult.totalDistance;
-            analysis.routes.add(new SortingAlgorithms.Route(floydResult.path, floydDistance, floydDistance/2, "Floyd-Warshall"));
+        analysis.optimalRoute = SortingAlgorithms.findOptimalRoute(analysis.routes);
+        return analysis;
+    }
+    
+    // Cached findOptimalRoutesInParallel for repeated queries. The profile names the traffic, weather and
+    // accessibility settings the caller applies to the answer; the cache treats it as part of the key.
+    // The returned analysis is shared between callers and must not be modified. Analyses with timed-out
+    // algorithms are returned but not cached, so one slow run does not pin a partial comparison.
+    public static RouteAnalysis findOptimalRoutesCached(Graph graph, Nodes start, Nodes end, String profile) {
+        return ANALYSIS_CACHE.get(graph, start, end, "comparison", profile,
+                () -> findOptimalRoutesInParallel(graph, start, end, new ArrayList<>()), RouteAnalysis::isComplete);
+    }
+    
+    public static RouteCache<RouteAnalysis> analysisCache() {
+        return ANALYSIS_CACHE;
+    }
+    
+    public interface ProgressListener {
+        void algorithmFinished(String algorithm, PathResult result, double millis);
+    }
+    
+    interface RouteSearch {
+        PathResult run(CompactGraph snapshot, int start, int end);
+    }
+    
+    // A search in PARALLEL_POOL that records when it started running and reports to the listener when
+    // it completes. A cancelled search never completes, so it is never reported.
+    private static class SearchTask extends FutureTask<TimedResult> {
+        private final String name;
+        private final ProgressListener listener;
+        volatile boolean started;
+        volatile long startNanos;
+        
+        SearchTask(String name, Callable<TimedResult> search, ProgressListener listener) {
+            super(search);
+            this.name = name;
+            this.listener = listener;
         }
         
-        if (!aStarResult.path.isEmpty()) {
-            analysis.routes.add(new SortingAlgorithms.Route(aStarResult.path, aStarResult.totalDistance, aStarResult.totalDistance/2, "A*"));
+        @Override
+        public void run() {
+            startNanos = System.nanoTime();
+            started = true;
+            super.run();
         }
         
-        if (!landmarks.isEmpty()) {
-            AStarSearch.AStarResult landmarkResult = AStarSearch.findPathWithLandmarks(graph, start, end, landmarks);
-            if (!landmarkResult.path.isEmpty()) {
-                analysis.routes.add(new SortingAlgorithms.Route(landmarkResult.path, landmarkResult.totalDistance, landmarkResult.totalDistance/2, "Landmark-A*"));
+        @Override
+        protected void done() {
+            if (listener == null || isCancelled()) {
+                return;
+            }
+            try {
+                TimedResult timed = get();
+                listener.algorithmFinished(name, timed.result, timed.millis);
+            } catch (InterruptedException | ExecutionException e) {
+                // Failures reach the caller through its own get().
             }
         }
+    }
+    
+    private static class TimedResult {
+        final PathResult result;
+        final double millis;
         
-        analysis.optimalRoute = SortingAlgorithms.findOptimalRoute(analysis.routes);
-        analysis.landmarks = landmarks;
-        
-        return analysis;
+        TimedResult(PathResult result, double millis) {
+            this.result = result;
+            this.millis = millis;
+        }
     }
     
-    private static double extractDistance(String pathString) {
-        try {
-            String[] parts = pathString.split("Distance:");
-            if (parts.length > 1) {
-                String distancePart = parts[1].split("Time")[0].trim();
-                return Double.parseDouble(distancePart);
+    // The algorithms compared by findOptimalRoutes, in report order.
+    private static Map<String, RouteSearch> algorithms(Graph graph, List<String> landmarks) {
+        Map<String, RouteSearch> algorithms = new LinkedHashMap<>();
+        algorithms.put("Dijkstra", DijkstraSearch::shortestPath);
+        algorithms.put("Floyd-Warshall", (snapshot, start, end) -> FloydWarshall.floydWarshall(graph, snapshot, start, end));
+        algorithms.put("A*", AStarSearch::aStarSearch);
+        algorithms.put("ALT", AStarSearch::altSearch);
+        algorithms.put("Bidirectional Dijkstra", BidirectionalSearch::dijkstra);
+        algorithms.put("Bidirectional A*", BidirectionalSearch::aStar);
+        if (!landmarks.isEmpty()) {
+            algorithms.put("Landmark-A*", (snapshot, start, end) -> AStarSearch.findPathWithLandmarks(snapshot, start, end, landmarks));
+        }
+        return algorithms;
+    }
+    
+    private static void record(RouteAnalysis analysis, String algorithm, PathResult result, double millis) {
+        analysis.algorithmPerformance.put(algorithm, millis);
+        analysis.nodesSettled.put(algorithm, result.nodesExplored);
+        // The exact algorithms all agree on the route; list it once, naming every algorithm that found it.
+        if (result.isFound()) {
+            List<String> path = result.names();
+            for (SortingAlgorithms.Route route : analysis.routes) {
+                if (route.path.equals(path)) {
+                    route.algorithm += ALGORITHM_SEPARATOR + algorithm;
+                    return;
+                }
             }
-        } catch (Exception e) {
-            return 0.0;
         }
-        return 0.0;
+        addRoute(analysis.routes, result, algorithm);
+    }
+    
+    private static double elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000.0;
+    }
+    
+    static void addRoute(List<SortingAlgorithms.Route> routes, PathResult result, String algorithm) {
+        if (result.isFound()) {
+            routes.add(toRoute(result, algorithm));
+        }
+    }
+    
+    static SortingAlgorithms.Route toRoute(PathResult result, String algorithm) {
+        return new SortingAlgorithms.Route(result.names(), result.totalDistance, result.totalDistance/2, algorithm);
     }
     
     public static RouteAnalysis findMultipleRouteOptions(Graph graph, Nodes start, Nodes end, int numOptions) {
         RouteAnalysis analysis = new RouteAnalysis();
         
-        List<AStarSearch.AStarResult> multiplePaths = AStarSearch.findMultiplePaths(graph, start, end, numOptions);
+        List<PathResult> multiplePaths = AStarSearch.findMultiplePaths(graph, start, end, numOptions);
         
-        for (AStarSearch.AStarResult result : multiplePaths) {
-            analysis.routes.add(new SortingAlgorithms.Route(result.path, result.totalDistance, result.totalDistance/2, "A* Multiple"));
+        for (PathResult result : multiplePaths) {
+            analysis.routes.add(toRoute(result, "A* Multiple"));
         }
         
         SortingAlgorithms.sortByDistance(analysis.routes);
@@ -111,6 +289,55 @@ public class RouteOptimizer {
         return analysis;
     }
     
+    // Chooses the route on time-dependent walking times for this departure, so congestion can change
+    // the route itself rather than only scaling the time of the shortest one.
+    public static RouteAnalysis optimizeForDeparture(Graph graph, Nodes start, Nodes end, LocalTime departure) {
+        RouteAnalysis analysis = new RouteAnalysis();
+        
+        long startTime = System.nanoTime();
+        TimeDependentSearch.TimedPath timed = TimeDependentSearch.route(graph, start, end, departure);
+        record(analysis, "Time-Dependent", timed.path, elapsedMillis(startTime));
+        
+        if (!analysis.routes.isEmpty()) {
+            SortingAlgorithms.Route route = analysis.routes.get(0);
+            analysis.trafficFactor = route.time == 0 ? 1.0 : timed.travelSeconds / route.time;
+            route.time = timed.travelSeconds;
+        }
+        analysis.optimalRoute = SortingAlgorithms.findOptimalRoute(analysis.routes);
+        
+        return analysis;
+    }
+    
+    // Chooses the route on weather-weighted edges, so a wet or foggy stretch is avoided when a dry detour
+    // is quicker. Distances stay in metres; times are the weather-adjusted walking times.
+    public static RouteAnalysis optimizeForWeather(Graph graph, Nodes start, Nodes end) {
+        RouteAnalysis analysis = new RouteAnalysis();
+
+        CompactGraph snapshot = graph.snapshot();
+        int startIndex = snapshot.indexOf(start);
+        int endIndex = snapshot.indexOf(end);
+        if (startIndex == -1 || endIndex == -1) {
+            return analysis;
+        }
+
+        WeatherOverlay weather = snapshot.weather(WeatherIntegration.conditions());
+        Map<String, RouteSearch> algorithms = new LinkedHashMap<>();
+        algorithms.put("Weather Dijkstra", DijkstraSearch::shortestPath);
+        algorithms.put("Weather A*", AStarSearch::aStarSearch);
+        for (Map.Entry<String, RouteSearch> algorithm : algorithms.entrySet()) {
+            long startTime = System.nanoTime();
+            PathResult result = algorithm.getValue().run(weather.graph(), startIndex, endIndex);
+            double millis = elapsedMillis(startTime);
+            record(analysis, algorithm.getKey(), weather.inMetres(result), millis);
+            if (result.isFound()) {
+                analysis.routes.get(analysis.routes.size() - 1).time = result.totalDistance / TimeDependentSearch.WALKING_SPEED;
+            }
+        }
+
+        analysis.optimalRoute = SortingAlgorithms.findOptimalRoute(analysis.routes);
+        return analysis;
+    }
+
     public static List<SortingAlgorithms.Route> findRoutesWithLandmarks(Graph graph, Nodes start, Nodes end, String landmark) {
         List<SortingAlgorithms.Route> allRoutes = new ArrayList<>();
         
@@ -122,7 +349,13 @@ public class RouteOptimizer {
     
     public static Map<String, List<SortingAlgorithms.Route>> compareAlgorithms(Graph graph, Nodes start, Nodes end) {
         RouteAnalysis analysis = findOptimalRoutes(graph, start, end, new ArrayList<>());
-        return SortingAlgorithms.groupRoutesByAlgorithm(analysis.routes);
+        Map<String, List<SortingAlgorithms.Route>> grouped = new HashMap<>();
+        for (SortingAlgorithms.Route route : analysis.routes) {
+            for (String algorithm : route.algorithm.split(ALGORITHM_SEPARATOR)) {
+                grouped.computeIfAbsent(algorithm, name -> new ArrayList<>()).add(route);
+            }
+        }
+        return grouped;
     }
     
     public static String generateRouteReport(RouteAnalysis analysis) {
@@ -153,75 +386,89 @@ public class RouteOptimizer {
             report.append("- ").append(entry.getKey()).append(": ").append(entry.getValue()).append("ms\n");
         }
         
+        if (!analysis.timedOutAlgorithms.isEmpty()) {
+            report.append("\nTimed Out: ").append(String.join(", ", analysis.timedOutAlgorithms)).append("\n");
+        }
+        
+        if (!analysis.nodesSettled.isEmpty()) {
+            report.append("\nNodes Settled:\n");
+            for (Map.Entry<String, Integer> entry : analysis.nodesSettled.entrySet()) {
+                report.append("- ").append(entry.getKey()).append(": ").append(entry.getValue()).append("\n");
+            }
+        }
+        
         return report.toString();
     }
     
     public static List<SortingAlgorithms.Route> applyDivideAndConquer(Graph graph, Nodes start, Nodes end) {
         List<SortingAlgorithms.Route> routes = new ArrayList<>();
         
-        Set<Nodes> allNodes = graph.getNodes();
-        List<Nodes> nodesList = new ArrayList<>(allNodes);
-        int mid = nodesList.size() / 2;
-        
-        List<Nodes> firstHalf = nodesList.subList(0, mid);
-        List<Nodes> secondHalf = nodesList.subList(mid, nodesList.size());
-        
-        for (Nodes intermediate : firstHalf) {
-            if (!intermediate.equals(start) && !intermediate.equals(end)) {
-                String path1 = graph.shortestPath(start, intermediate);
-                String path2 = graph.shortestPath(intermediate, end);
-                
-                if (!path1.contains("There isn't a path") && !path2.contains("There isn't a path")) {
-                    double distance1 = extractDistance(path1);
-                    double distance2 = extractDistance(path2);
-                    double totalDistance = distance1 + distance2;
-                    
-                    List<String> combinedPath = new ArrayList<>();
-                    String[] parts1 = path1.split("----");
-                    for (String part : parts1) {
-                        combinedPath.add(part.trim());
-                    }
-                    String[] parts2 = path2.split("----");
-                    for (int i = 1; i < parts2.length; i++) {
-                        combinedPath.add(parts2[i].trim());
-                    }
-                    
-                    routes.add(new SortingAlgorithms.Route(combinedPath, totalDistance, totalDistance/2, "Divide-Conquer"));
-                }
+        CompactGraph snapshot = graph.snapshot();
+        int startIndex = snapshot.indexOf(start);
+        int endIndex = snapshot.indexOf(end);
+        if (startIndex == -1 || endIndex == -1) {
+            return routes;
+        }
+        
+        // One tree out of start and one into end score every intermediate in O(1); only the
+        // three best via-routes are materialised.
+        ShortestPathTree fromStart = ShortestPathTree.from(snapshot, startIndex);
+        ShortestPathTree toEnd = ShortestPathTree.towards(snapshot, endIndex);
+        
+        int mid = snapshot.size() / 2;
+        List<Integer> intermediates = new ArrayList<>();
+        for (int intermediate = 0; intermediate < mid; intermediate++) {
+            if (intermediate != startIndex && intermediate != endIndex
+                    && fromStart.reaches(intermediate) && toEnd.reaches(intermediate)) {
+                intermediates.add(intermediate);
             }
         }
+        intermediates.sort(Comparator.comparingDouble(i -> fromStart.distanceTo(i) + toEnd.distanceTo(i)));
+        
+        for (int i = 0; i < intermediates.size() && routes.size() < 3; i++) {
+            int intermediate = intermediates.get(i);
+            addRoute(routes, PathResult.join(fromStart.pathTo(intermediate), toEnd.pathFrom(intermediate)), "Divide-Conquer");
+        }
         
-        SortingAlgorithms.sortByDistance(routes);
-        return routes.subList(0, Math.min(3, routes.size()));
+        return routes;
     }
     
     public static SortingAlgorithms.Route applyGreedyAlgorithm(Graph graph, Nodes start, Nodes end) {
+        CompactGraph snapshot = graph.snapshot();
+        int current = snapshot.indexOf(start);
+        int endIndex = snapshot.indexOf(end);
+        
         List<String> path = new ArrayList<>();
         path.add(start.name);
+        if (current == -1) {
+            return new SortingAlgorithms.Route(path, 0, 0, "Greedy");
+        }
         
-        Nodes current = start;
+        boolean[] inPath = new boolean[snapshot.size()];
+        inPath[current] = true;
         double totalDistance = 0;
         
-        while (!current.equals(end)) {
-            Edge bestEdge = null;
+        while (current != endIndex) {
+            int bestEdge = -1;
             double minDistance = Double.POSITIVE_INFINITY;
             
-            for (Edge edge : current.edges) {
-                if (!path.contains(edge.destination.name) && edge.weight < minDistance) {
-                    minDistance = edge.weight;
-                    bestEdge = edge;
+            for (int e = snapshot.offsets[current]; e < snapshot.offsets[current + 1]; e++) {
+                if (!inPath[snapshot.targets[e]] && snapshot.weights[e] < minDistance) {
+                    minDistance = snapshot.weights[e];
+                    bestEdge = e;
                 }
             }
             
-            if (bestEdge == null) {
+            if (bestEdge == -1) {
                 break;
             }
             
-            path.add(bestEdge.destination.name);
-            totalDistance += bestEdge.weight;
-            current = bestEdge.destination;
+            current = snapshot.targets[bestEdge];
+            inPath[current] = true;
+            path.add(snapshot.name(current));
+            totalDistance += snapshot.weights[bestEdge];
         }
         
         return new SortingAlgorithms.Route(path, totalDistance, totalDistance/2, "Greedy");
     }
-} 
\ No newline at end of file
+}
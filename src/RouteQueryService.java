@@ -0,0 +1,243 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Headless front end for the routing engines. Requests run on an executor and come back as futures.
+// At most maxPending requests are in flight; submit blocks beyond that. Dijkstra requests from the
+// same source that are waiting at the same time are answered from one shared search tree.
+public class RouteQueryService implements AutoCloseable {
+
+    public enum Algorithm {
+        DIJKSTRA,
+        A_STAR,
+        ALT,
+        BIDIRECTIONAL_DIJKSTRA,
+        BIDIRECTIONAL_A_STAR,
+        CONTRACTION_HIERARCHY
+    }
+
+    public static class Options {
+        public final Algorithm algorithm;
+
+        public Options(Algorithm algorithm) {
+            this.algorithm = algorithm;
+        }
+    }
+
+    public static final Options DEFAULT_OPTIONS = new Options(Algorithm.DIJKSTRA);
+
+    private final Supplier<CompactGraph> graphs;
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final Map<BatchKey, Batch> pendingBatches = new HashMap<>();
+    private final AtomicLong sharedTreeRequests = new AtomicLong();
+
+    public RouteQueryService(Supplier<CompactGraph> graphs, ExecutorService executor, int maxPending) {
+        this.graphs = graphs;
+        this.executor = executor;
+        this.permits = new Semaphore(maxPending);
+    }
+
+    public static RouteQueryService withThreadPool(Graph graph, int threads, int maxPending) {
+        return new RouteQueryService(graph::snapshot, Executors.newFixedThreadPool(threads), maxPending);
+    }
+
+    // Virtual threads need Java 21; older runtimes fall back to one platform thread per core.
+    public static RouteQueryService withVirtualThreads(Graph graph, int maxPending) {
+        ExecutorService executor;
+        try {
+            executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        }
+        return new RouteQueryService(graph::snapshot, executor, maxPending);
+    }
+
+    public CompletableFuture<PathResult> submit(Nodes start, Nodes end) throws InterruptedException {
+        return submit(start, end, DEFAULT_OPTIONS);
+    }
+
+    // Blocks while maxPending requests are already in flight.
+    public CompletableFuture<PathResult> submit(Nodes start, Nodes end, Options options) throws InterruptedException {
+        CompactGraph snapshot = graphs.get();
+        int startIndex = snapshot.indexOf(start);
+        int endIndex = snapshot.indexOf(end);
+        if (startIndex == -1 || endIndex == -1) {
+            return CompletableFuture.completedFuture(PathResult.notFound(snapshot, 0));
+        }
+        return submit(snapshot, startIndex, endIndex, options);
+    }
+
+    public CompletableFuture<PathResult> submit(CompactGraph snapshot, int start, int end, Options options)
+            throws InterruptedException {
+        permits.acquire();
+        Request request = new Request(end);
+        request.result.whenComplete((result, error) -> permits.release());
+
+        try {
+            if (options.algorithm == Algorithm.DIJKSTRA) {
+                enqueueBatched(snapshot, start, request);
+            } else {
+                executor.execute(() -> answer(request, () -> route(snapshot, start, end, options.algorithm)));
+            }
+        } catch (RejectedExecutionException e) {
+            request.result.completeExceptionally(e);
+        }
+        return request.result;
+    }
+
+    private void enqueueBatched(CompactGraph snapshot, int start, Request request) {
+        BatchKey key = new BatchKey(snapshot, start);
+        Batch batch;
+        boolean created = false;
+        synchronized (pendingBatches) {
+            batch = pendingBatches.get(key);
+            if (batch == null) {
+                batch = new Batch(key);
+                pendingBatches.put(key, batch);
+                created = true;
+            }
+            batch.requests.add(request);
+        }
+
+        if (created) {
+            Batch scheduled = batch;
+            try {
+                executor.execute(() -> runBatch(scheduled));
+            } catch (RejectedExecutionException e) {
+                synchronized (pendingBatches) {
+                    pendingBatches.remove(key);
+                }
+                for (Request waiting : scheduled.requests) {
+                    waiting.result.completeExceptionally(e);
+                }
+            }
+        }
+    }
+
+    // Requests can join a batch until it starts running; after that a new batch is opened.
+    private void runBatch(Batch batch) {
+        synchronized (pendingBatches) {
+            pendingBatches.remove(batch.key);
+        }
+
+        CompactGraph snapshot = batch.key.graph;
+        int start = batch.key.start;
+        List<Request> requests = batch.requests;
+
+        if (requests.size() == 1) {
+            Request request = requests.get(0);
+            answer(request, () -> DijkstraSearch.shortestPath(snapshot, start, request.end));
+            return;
+        }
+
+        int[] goals = new int[requests.size()];
+        for (int i = 0; i < goals.length; i++) {
+            goals[i] = requests.get(i).end;
+        }
+
+        ShortestPathTree tree;
+        try {
+            tree = ShortestPathTree.from(snapshot, start, goals);
+        } catch (RuntimeException e) {
+            for (Request request : requests) {
+                request.result.completeExceptionally(e);
+            }
+            return;
+        }
+        sharedTreeRequests.addAndGet(requests.size());
+        for (Request request : requests) {
+            answer(request, () -> tree.pathTo(request.end));
+        }
+    }
+
+    private static PathResult route(CompactGraph snapshot, int start, int end, Algorithm algorithm) {
+        switch (algorithm) {
+            case A_STAR:
+                return AStarSearch.aStarSearch(snapshot, start, end);
+            case ALT:
+                return AStarSearch.altSearch(snapshot, start, end);
+            case BIDIRECTIONAL_DIJKSTRA:
+                return BidirectionalSearch.dijkstra(snapshot, start, end);
+            case BIDIRECTIONAL_A_STAR:
+                return BidirectionalSearch.aStar(snapshot, start, end);
+            case CONTRACTION_HIERARCHY:
+                return snapshot.contractionHierarchy().shortestPath(start, end);
+            default:
+                return DijkstraSearch.shortestPath(snapshot, start, end);
+        }
+    }
+
+    private static void answer(Request request, Supplier<PathResult> search) {
+        try {
+            request.result.complete(search.get());
+        } catch (RuntimeException e) {
+            request.result.completeExceptionally(e);
+        }
+    }
+
+    // Requests answered from a tree shared with at least one other request.
+    public long sharedTreeRequests() {
+        return sharedTreeRequests.get();
+    }
+
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    // Lets queued requests finish for up to a minute, then cancels whatever is still running.
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class Request {
+        final int end;
+        final CompletableFuture<PathResult> result = new CompletableFuture<>();
+
+        Request(int end) {
+            this.end = end;
+        }
+    }
+
+    private static class Batch {
+        final BatchKey key;
+        final List<Request> requests = new ArrayList<>();
+
+        Batch(BatchKey key) {
+            this.key = key;
+        }
+    }
+
+    private static class BatchKey {
+        final CompactGraph graph;
+        final int start;
+
+        BatchKey(CompactGraph graph, int start) {
+            this.graph = graph;
+            this.start = start;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof BatchKey)) return false;
+            BatchKey other = (BatchKey) obj;
+            return graph == other.graph && start == other.start;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(graph) * 31 + start;
+        }
+    }
+}
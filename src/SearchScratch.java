@@ -0,0 +1,57 @@
+import java.util.*;
+
+// Per-search working arrays, reused through CompactGraph's scratch pool. An entry only counts when its
+// stamp matches the current generation, so reset() starts a new search by bumping the generation
+// instead of clearing n entries.
+public class SearchScratch {
+    private static final double INF = Double.POSITIVE_INFINITY;
+
+    final double[] distances;
+    // Valid along any predecessor chain ending at a reached node; read other entries through previous().
+    final int[] previous;
+    final IndexedMinHeap queue;
+    private final int[] reachedIn;
+    private final int[] settledIn;
+    private int generation;
+
+    SearchScratch(int size) {
+        distances = new double[size];
+        previous = new int[size];
+        queue = new IndexedMinHeap(size);
+        reachedIn = new int[size];
+        settledIn = new int[size];
+        generation = 1;
+    }
+
+    double distance(int node) {
+        return reachedIn[node] == generation ? distances[node] : INF;
+    }
+
+    int previous(int node) {
+        return reachedIn[node] == generation ? previous[node] : -1;
+    }
+
+    void reach(int node, double distance, int predecessor) {
+        reachedIn[node] = generation;
+        distances[node] = distance;
+        previous[node] = predecessor;
+    }
+
+    boolean isSettled(int node) {
+        return settledIn[node] == generation;
+    }
+
+    void settle(int node) {
+        settledIn[node] = generation;
+    }
+
+    void reset() {
+        queue.clear();
+        if (generation == Integer.MAX_VALUE) {
+            Arrays.fill(reachedIn, 0);
+            Arrays.fill(settledIn, 0);
+            generation = 0;
+        }
+        generation++;
+    }
+}
@@ -0,0 +1,139 @@
+import java.util.*;
+
+public class ShortestPathTree {
+    final CompactGraph graph;
+    final int source;
+    final double[] distances;
+    final int[] previous;
+    final int nodesSettled;
+    final boolean reversed;
+
+    private ShortestPathTree(CompactGraph graph, int source, double[] distances, int[] previous, int nodesSettled,
+                             boolean reversed) {
+        this.graph = graph;
+        this.source = source;
+        this.distances = distances;
+        this.previous = previous;
+        this.nodesSettled = nodesSettled;
+        this.reversed = reversed;
+    }
+
+    // Distances from every node to target, grown over the reversed edges; read paths with pathFrom.
+    public static ShortestPathTree towards(CompactGraph graph, int target) {
+        return build(graph.reverse(), target, true, null);
+    }
+
+    public static ShortestPathTree from(CompactGraph graph, int source) {
+        return build(graph, source, false, null);
+    }
+
+    // Stops once every goal is settled; only the goals' distances and paths are guaranteed final.
+    public static ShortestPathTree from(CompactGraph graph, int source, int[] goals) {
+        return build(graph, source, false, goals);
+    }
+
+    private static ShortestPathTree build(CompactGraph graph, int source, boolean reversed, int[] goals) {
+        int n = graph.size();
+        int[] offsets = graph.offsets;
+        int[] targets = graph.targets;
+        double[] weights = graph.weights;
+
+        double[] distances = new double[n];
+        int[] previous = new int[n];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        Arrays.fill(previous, -1);
+
+        int[] pendingGoals = null;
+        int remaining = 0;
+        if (goals != null) {
+            pendingGoals = goals.clone();
+            Arrays.sort(pendingGoals);
+            for (int i = 0; i < pendingGoals.length; i++) {
+                if (i == 0 || pendingGoals[i] != pendingGoals[i - 1]) {
+                    remaining++;
+                }
+            }
+        }
+
+        SearchScratch scratch = graph.acquireScratch();
+        try {
+            IndexedMinHeap queue = scratch.queue;
+
+            distances[source] = 0;
+            queue.offer(source, 0);
+            int nodesSettled = 0;
+
+            while (!queue.isEmpty()) {
+                int current = queue.poll();
+                scratch.settle(current);
+                nodesSettled++;
+
+                if (pendingGoals != null && Arrays.binarySearch(pendingGoals, current) >= 0 && --remaining == 0) {
+                    break;
+                }
+
+                for (int e = offsets[current]; e < offsets[current + 1]; e++) {
+                    int neighbor = targets[e];
+                    if (scratch.isSettled(neighbor)) {
+                        continue;
+                    }
+
+                    double candidate = distances[current] + weights[e];
+                    if (candidate < distances[neighbor]) {
+                        distances[neighbor] = candidate;
+                        previous[neighbor] = current;
+                        queue.offer(neighbor, candidate);
+                    }
+                }
+            }
+
+            return new ShortestPathTree(graph, source, distances, previous, nodesSettled, reversed);
+        } finally {
+            graph.releaseScratch(scratch);
+        }
+    }
+
+    public int source() {
+        return source;
+    }
+
+    public double distanceTo(int target) {
+        return distances[target];
+    }
+
+    public boolean reaches(int target) {
+        return distances[target] != Double.POSITIVE_INFINITY;
+    }
+
+    public PathResult pathTo(int target) {
+        if (reversed) {
+            throw new IllegalStateException("pathTo needs a tree built with from(); use pathFrom");
+        }
+        if (!reaches(target)) {
+            return PathResult.notFound(graph, nodesSettled);
+        }
+        return PathResult.fromPredecessors(graph, previous, target, distances[target], nodesSettled);
+    }
+
+    // Path from node to the target of a towards() tree, in the original edge direction.
+    public PathResult pathFrom(int node) {
+        if (!reversed) {
+            throw new IllegalStateException("pathFrom needs a tree built with towards(); use pathTo");
+        }
+        CompactGraph original = graph.reverse();
+        if (!reaches(node)) {
+            return PathResult.notFound(original, nodesSettled);
+        }
+
+        int length = 1;
+        for (int at = node; at != source; at = previous[at]) {
+            length++;
+        }
+        int[] ids = new int[length];
+        ids[0] = node;
+        for (int i = 1; i < length; i++) {
+            ids[i] = previous[ids[i - 1]];
+        }
+        return PathResult.of(original, ids, distances[node], nodesSettled);
+    }
+}
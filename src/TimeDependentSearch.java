@@ -0,0 +1,334 @@
+import java.time.LocalTime;
+import java.util.*;
+
+// Shortest walking time when congestion depends on the clock. Leaving u for v at time t takes
+// weight / WALKING_SPEED * (f(u, t) + f(v, t)) / 2 seconds, where f is the traffic factor of a node's
+// location at time t, read from TrafficSimulator's table. Waiting never helps on these
+// profiles (arriving later never means arriving earlier), so a Dijkstra over arrival times is exact.
+public class TimeDependentSearch {
+    // Metres per second; RouteOptimizer.toRoute uses the same pace for the untimed base time.
+    public static final double WALKING_SPEED = 2.0;
+    public static final LocalTime PROFILE_START = LocalTime.of(8, 0);
+    public static final LocalTime PROFILE_END = LocalTime.of(18, 0);
+    public static final int DEFAULT_STEP_MINUTES = 15;
+
+    private static final double INF = Double.POSITIVE_INFINITY;
+
+    private final CompactGraph graph;
+    private final TrafficTable traffic;
+    // Table row of each node.
+    private final int[] rows;
+
+    private TimeDependentSearch(CompactGraph graph, TrafficTable traffic) {
+        this.graph = graph;
+        this.traffic = traffic;
+        this.rows = traffic.rows(graph);
+    }
+
+    // Uses the traffic table current at this call; build a new one after the factors change.
+    public static TimeDependentSearch on(CompactGraph graph) {
+        return new TimeDependentSearch(graph, TrafficSimulator.table());
+    }
+
+    public static TimedPath route(Graph graph, Nodes start, Nodes end, LocalTime departure) {
+        CompactGraph snapshot = graph.snapshot();
+        int startIndex = snapshot.indexOf(start);
+        int endIndex = snapshot.indexOf(end);
+        if (startIndex == -1 || endIndex == -1) {
+            return new TimedPath(PathResult.notFound(snapshot, 0), departure, INF);
+        }
+        return on(snapshot).route(startIndex, endIndex, departure);
+    }
+
+    public static Profile profile(Graph graph, Nodes start, Nodes end) {
+        CompactGraph snapshot = graph.snapshot();
+        int startIndex = snapshot.indexOf(start);
+        int endIndex = snapshot.indexOf(end);
+        if (startIndex == -1 || endIndex == -1) {
+            return new Profile(on(snapshot), -1, new int[0], new double[0], new int[0], 0);
+        }
+        return on(snapshot).profile(startIndex, endIndex, PROFILE_START, PROFILE_END, DEFAULT_STEP_MINUTES);
+    }
+
+    public TimedPath route(int start, int end, LocalTime departure) {
+        double leave = departure.toSecondOfDay();
+        SearchScratch scratch = graph.acquireScratch();
+        try {
+            IndexedMinHeap queue = scratch.queue;
+            scratch.reach(start, leave, -1);
+            queue.offer(start, leave);
+            int nodesSettled = 0;
+
+            while (!queue.isEmpty()) {
+                int current = queue.poll();
+                scratch.settle(current);
+                nodesSettled++;
+
+                if (current == end) {
+                    PathResult chain = PathResult.fromPredecessors(graph, scratch.previous, end, 0, nodesSettled);
+                    return new TimedPath(withLength(graph, chain.nodeIds, nodesSettled), departure, scratch.distance(end) - leave);
+                }
+
+                double arrival = scratch.distance(current);
+                double factor = traffic.factorAt(rows[current], arrival);
+                for (int e = graph.offsets[current]; e < graph.offsets[current + 1]; e++) {
+                    int neighbor = graph.targets[e];
+                    if (scratch.isSettled(neighbor)) {
+                        continue;
+                    }
+
+                    double candidate = arrival + edgeSeconds(e, factor, arrival);
+                    if (candidate < scratch.distance(neighbor)) {
+                        scratch.reach(neighbor, candidate, current);
+                        queue.offer(neighbor, candidate);
+                    }
+                }
+            }
+
+            return new TimedPath(PathResult.notFound(graph, nodesSettled), departure, INF);
+        } finally {
+            graph.releaseScratch(scratch);
+        }
+    }
+
+    // One search for every departure from `from` to `to` in steps of stepMinutes. Each node carries a
+    // vector of arrival times, one per departure, and is rescanned whenever any of them improves; the
+    // queue is keyed by the earliest of them. The search ends once no queued node can still improve any
+    // arrival at the end.
+    public Profile profile(int start, int end, LocalTime from, LocalTime to, int stepMinutes) {
+        return profiles(start, new int[]{end}, from, to, stepMinutes)[0];
+    }
+
+    // The same search shared by several destinations; it ends once none of them can still improve.
+    public Profile[] profiles(int start, int[] ends, LocalTime from, LocalTime to, int stepMinutes) {
+        int first = from.toSecondOfDay();
+        int step = stepMinutes * 60;
+        int samples = (to.toSecondOfDay() - first) / step + 1;
+        int n = graph.size();
+
+        int[] departures = new int[samples];
+        double[] arrivals = new double[n * samples];
+        int[] previous = new int[n * samples];
+        double[] sourceFactors = new double[samples];
+        Arrays.fill(arrivals, INF);
+        Arrays.fill(previous, -1);
+        for (int i = 0; i < samples; i++) {
+            departures[i] = first + i * step;
+            arrivals[start * samples + i] = departures[i];
+        }
+
+        // Latest arrival over all departures at each distinct end; the search may stop once the queue
+        // passes the largest of them.
+        int[] endSlot = new int[n];
+        Arrays.fill(endSlot, -1);
+        int distinctEnds = 0;
+        for (int end : ends) {
+            if (endSlot[end] == -1) {
+                endSlot[end] = distinctEnds++;
+            }
+        }
+        double[] endLatest = new double[distinctEnds];
+        Arrays.fill(endLatest, INF);
+        if (endSlot[start] != -1) {
+            endLatest[endSlot[start]] = latest(arrivals, start * samples, samples);
+        }
+        double bound = max(endLatest);
+        int nodesScanned = 0;
+
+        SearchScratch scratch = graph.acquireScratch();
+        try {
+            IndexedMinHeap queue = scratch.queue;
+            queue.offer(start, departures[0]);
+
+            while (!queue.isEmpty() && queue.peekKey() < bound) {
+                int current = queue.poll();
+                nodesScanned++;
+                int row = current * samples;
+                for (int i = 0; i < samples; i++) {
+                    if (arrivals[row + i] != INF) {
+                        sourceFactors[i] = traffic.factorAt(rows[current], arrivals[row + i]);
+                    }
+                }
+
+                for (int e = graph.offsets[current]; e < graph.offsets[current + 1]; e++) {
+                    int neighbor = graph.targets[e];
+                    int neighborRow = neighbor * samples;
+                    double earliest = INF;
+                    boolean improved = false;
+
+                    for (int i = 0; i < samples; i++) {
+                        double arrival = arrivals[row + i];
+                        if (arrival != INF) {
+                            double candidate = arrival + edgeSeconds(e, sourceFactors[i], arrival);
+                            if (candidate < arrivals[neighborRow + i]) {
+                                arrivals[neighborRow + i] = candidate;
+                                previous[neighborRow + i] = current;
+                                improved = true;
+                            }
+                        }
+                        earliest = Math.min(earliest, arrivals[neighborRow + i]);
+                    }
+
+                    if (improved) {
+                        queue.offer(neighbor, earliest);
+                        int slot = endSlot[neighbor];
+                        if (slot != -1) {
+                            double previousLatest = endLatest[slot];
+                            endLatest[slot] = latest(arrivals, neighborRow, samples);
+                            if (previousLatest == bound) {
+                                bound = max(endLatest);
+                            }
+                        }
+                    }
+                }
+            }
+        } finally {
+            graph.releaseScratch(scratch);
+        }
+
+        Profile[] profiles = new Profile[ends.length];
+        for (int k = 0; k < ends.length; k++) {
+            int endRow = ends[k] * samples;
+            double[] travelSeconds = new double[samples];
+            for (int i = 0; i < samples; i++) {
+                travelSeconds[i] = arrivals[endRow + i] - departures[i];
+            }
+            profiles[k] = new Profile(this, ends[k], departures, travelSeconds, previous, nodesScanned);
+        }
+        return profiles;
+    }
+
+    private static double max(double[] values) {
+        double max = 0;
+        for (double value : values) {
+            max = Math.max(max, value);
+        }
+        return max;
+    }
+
+    private static double latest(double[] arrivals, int row, int samples) {
+        double latest = 0;
+        for (int i = 0; i < samples; i++) {
+            latest = Math.max(latest, arrivals[row + i]);
+        }
+        return latest;
+    }
+
+    // Seconds to walk the edge when entering it at `time`, given the factor at its source then.
+    private double edgeSeconds(int edge, double sourceFactor, double time) {
+        double targetFactor = traffic.factorAt(rows[graph.targets[edge]], time);
+        return graph.weights[edge] / WALKING_SPEED * (sourceFactor + targetFactor) / 2;
+    }
+
+    // Path results here report metres walked; the travel time is carried next to them.
+    private static PathResult withLength(CompactGraph graph, int[] ids, int nodesExplored) {
+        PathResult chain = PathResult.of(graph, ids, 0, nodesExplored);
+        double metres = 0;
+        for (double leg : chain.legDistances) {
+            metres += leg;
+        }
+        return new PathResult(graph, ids, chain.legDistances, metres, nodesExplored);
+    }
+
+    public static class TimedPath {
+        public final PathResult path;
+        public final LocalTime departure;
+        public final double travelSeconds;
+
+        TimedPath(PathResult path, LocalTime departure, double travelSeconds) {
+            this.path = path;
+            this.departure = departure;
+            this.travelSeconds = travelSeconds;
+        }
+    }
+
+    // Travel time and route for each sampled departure.
+    public static class Profile {
+        private final TimeDependentSearch search;
+        private final int end;
+        private final int[] departures;
+        private final double[] travelSeconds;
+        private final int[] previous;
+        public final int nodesScanned;
+
+        Profile(TimeDependentSearch search, int end, int[] departures, double[] travelSeconds, int[] previous, int nodesScanned) {
+            this.search = search;
+            this.end = end;
+            this.departures = departures;
+            this.travelSeconds = travelSeconds;
+            this.previous = previous;
+            this.nodesScanned = nodesScanned;
+        }
+
+        public int size() {
+            return departures.length;
+        }
+
+        public LocalTime departure(int i) {
+            return LocalTime.ofSecondOfDay(departures[i]);
+        }
+
+        public double travelSeconds(int i) {
+            return travelSeconds[i];
+        }
+
+        // Sample with the shortest travel time, -1 when the end is unreachable.
+        public int best() {
+            int best = -1;
+            for (int i = 0; i < travelSeconds.length; i++) {
+                if (travelSeconds[i] != INF && (best == -1 || travelSeconds[i] < travelSeconds[best])) {
+                    best = i;
+                }
+            }
+            return best;
+        }
+
+        public PathResult path(int i) {
+            if (travelSeconds[i] == INF) {
+                return PathResult.notFound(search.graph, nodesScanned);
+            }
+            int samples = departures.length;
+            int length = 1;
+            for (int at = end; previous[at * samples + i] != -1; at = previous[at * samples + i]) {
+                length++;
+            }
+            int[] ids = new int[length];
+            for (int at = end, k = length - 1; k >= 0; k--) {
+                ids[k] = at;
+                if (k > 0) {
+                    at = previous[at * samples + i];
+                }
+            }
+            return withLength(search.graph, ids, nodesScanned);
+        }
+
+        // Up to k samples with the shortest travel times, fastest first; ties keep the earlier departure.
+        public int[] fastest(int k) {
+            int[] chosen = new int[Math.min(k, travelSeconds.length)];
+            boolean[] taken = new boolean[travelSeconds.length];
+            int count = 0;
+            while (count < chosen.length) {
+                int best = -1;
+                for (int i = 0; i < travelSeconds.length; i++) {
+                    if (!taken[i] && travelSeconds[i] != INF && (best == -1 || travelSeconds[i] < travelSeconds[best])) {
+                        best = i;
+                    }
+                }
+                if (best == -1) {
+                    break;
+                }
+                taken[best] = true;
+                chosen[count++] = best;
+            }
+            return Arrays.copyOf(chosen, count);
+        }
+
+        public TimedPath bestDeparture() {
+            int best = best();
+            if (best == -1) {
+                return new TimedPath(PathResult.notFound(search.graph, nodesScanned), null, INF);
+            }
+            return new TimedPath(path(best), departure(best), travelSeconds[best]);
+        }
+    }
+}
@@ -0,0 +1,252 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Live congestion readings turned into edge weights. Each reading is one line
+//     <epoch millis>,<source name>,<target name>,<factor>
+// for the directed edge source -> target. An edge's weight is its base weight times the mean factor of
+// its readings in the last windowMillis, or the base weight when it has none. The window ends at the
+// newest reading, or at the wall clock when the feed is followed live, so a quiet feed still lets its
+// congestion expire. Readings already older than the window are rejected. New weights
+// are published as a fresh CompactGraph through an atomic reference, so a query that already took
+// current() keeps a consistent graph and readers never wait for the feed.
+public class TrafficFeed implements AutoCloseable {
+    public static final long DEFAULT_WINDOW_MILLIS = 5 * 60 * 1000L;
+    static final int PUBLISH_BATCH = 256;
+
+    private final CompactGraph base;
+    private final long windowMillis;
+    private final Map<String, Integer> nodeIds = new HashMap<>();
+    private final AtomicReference<CompactGraph> current;
+
+    // Readings inside the window by event time, oldest first, with running per-edge sums over them.
+    private final PriorityQueue<Reading> window = new PriorityQueue<>(Comparator.comparingLong(reading -> reading.timeMillis));
+    private final double[] factorSum;
+    private final int[] readingCount;
+    private long latestMillis = Long.MIN_VALUE;
+    // Start of the window as of the last publish; the window never moves back.
+    private long cutoffMillis = Long.MIN_VALUE;
+    private int unpublished;
+
+    private long accepted;
+    private long rejected;
+    private long published;
+    private Thread follower;
+    private volatile IOException failure;
+
+    public TrafficFeed(CompactGraph base) {
+        this(base, DEFAULT_WINDOW_MILLIS);
+    }
+
+    public TrafficFeed(CompactGraph base, long windowMillis) {
+        this.base = base;
+        this.windowMillis = windowMillis;
+        this.current = new AtomicReference<>(base);
+        this.factorSum = new double[base.edgeCount()];
+        this.readingCount = new int[base.edgeCount()];
+        for (int v = 0; v < base.size(); v++) {
+            nodeIds.put(base.name(v), v);
+        }
+    }
+
+    // Latest published graph; pass feed::current where a Supplier<CompactGraph> is expected.
+    public CompactGraph current() {
+        return current.get();
+    }
+
+    // Parses and records one reading. Malformed lines, unknown edges and non-positive factors are
+    // counted as rejected and skipped so one bad reading cannot stop the feed.
+    public synchronized boolean accept(String line) {
+        String[] fields = line.split(",");
+        if (fields.length != 4) {
+            rejected++;
+            return false;
+        }
+        Integer source = nodeIds.get(fields[1].trim());
+        Integer target = nodeIds.get(fields[2].trim());
+        long timeMillis;
+        double factor;
+        try {
+            timeMillis = Long.parseLong(fields[0].trim());
+            factor = Double.parseDouble(fields[3].trim());
+        } catch (NumberFormatException e) {
+            rejected++;
+            return false;
+        }
+        if (source == null || target == null || !record(timeMillis, source, target, factor)) {
+            rejected++;
+            return false;
+        }
+        return true;
+    }
+
+    // Returns false when there is no such edge, the factor is not a positive number or the reading is
+    // already outside the window.
+    public synchronized boolean record(long timeMillis, int source, int target, double factor) {
+        if (!(factor > 0) || Double.isInfinite(factor) || timeMillis < Math.max(cutoffMillis, cutoff(Long.MIN_VALUE))) {
+            return false;
+        }
+        boolean found = false;
+        for (int e = base.offsets[source]; e < base.offsets[source + 1]; e++) {
+            if (base.targets[e] == target) {
+                window.add(new Reading(timeMillis, e, factor));
+                factorSum[e] += factor;
+                readingCount[e]++;
+                found = true;
+            }
+        }
+        if (!found) {
+            return false;
+        }
+
+        accepted++;
+        latestMillis = Math.max(latestMillis, timeMillis);
+        if (++unpublished >= PUBLISH_BATCH) {
+            publish();
+        }
+        return true;
+    }
+
+    // Drops readings that left the window and swaps in weights built from the rest.
+    public synchronized void publish() {
+        publish(Long.MIN_VALUE);
+    }
+
+    // As above, with the window ending no earlier than nowMillis.
+    public synchronized void publish(long nowMillis) {
+        cutoffMillis = Math.max(cutoffMillis, cutoff(nowMillis));
+        while (!window.isEmpty() && window.peek().timeMillis < cutoffMillis) {
+            Reading expired = window.poll();
+            // Reset instead of subtracting the last reading so rounding never leaves a stale sum behind.
+            if (--readingCount[expired.edge] == 0) {
+                factorSum[expired.edge] = 0;
+            } else {
+                factorSum[expired.edge] -= expired.factor;
+            }
+        }
+
+        double[] weights = base.weights.clone();
+        for (int e = 0; e < weights.length; e++) {
+            if (readingCount[e] > 0) {
+                weights[e] *= factorSum[e] / readingCount[e];
+            }
+        }
+        current.set(base.withWeights(weights));
+        unpublished = 0;
+        published++;
+    }
+
+    // Reads readings until the end of the stream, publishing every PUBLISH_BATCH and at the end.
+    public void ingest(BufferedReader reader) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.isEmpty()) {
+                accept(line);
+            }
+        }
+        publishPending();
+    }
+
+    // Follows a file as it grows, like tail -f, on a daemon thread until close(). Whenever the reader
+    // catches up with the end of the file, whatever arrived is published and readings older than the
+    // window by the wall clock expire. A read error stops the follower and is kept in failure().
+    public synchronized void follow(Path file, long pollMillis) throws IOException {
+        if (follower != null) {
+            throw new IllegalStateException("already following a file");
+        }
+        BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+        Thread thread = new Thread(() -> {
+            try (BufferedReader lines = reader) {
+                StringBuilder partial = new StringBuilder();
+                while (!Thread.currentThread().isInterrupted()) {
+                    int c = lines.read();
+                    if (c == -1) {
+                        refresh(System.currentTimeMillis());
+                        Thread.sleep(pollMillis);
+                    } else if (c == '\n') {
+                        if (partial.length() > 0) {
+                            accept(partial.toString());
+                            partial.setLength(0);
+                        }
+                    } else if (c != '\r') {
+                        partial.append((char) c);
+                    }
+                }
+            } catch (IOException e) {
+                failure = e;
+            } catch (InterruptedException e) {
+                // close() stops the follower.
+            }
+        }, "traffic-feed");
+        thread.setDaemon(true);
+        follower = thread;
+        thread.start();
+    }
+
+    private synchronized void publishPending() {
+        if (unpublished > 0) {
+            publish();
+        }
+    }
+
+    // Publishes when readings arrived or some expire by nowMillis.
+    private synchronized void refresh(long nowMillis) {
+        long cutoff = cutoff(nowMillis);
+        if (unpublished > 0 || (!window.isEmpty() && window.peek().timeMillis < cutoff)) {
+            publish(nowMillis);
+        }
+    }
+
+    private long cutoff(long nowMillis) {
+        long end = Math.max(latestMillis, nowMillis);
+        return end == Long.MIN_VALUE ? Long.MIN_VALUE : end - windowMillis;
+    }
+
+    public synchronized long accepted() {
+        return accepted;
+    }
+
+    public synchronized long rejected() {
+        return rejected;
+    }
+
+    public synchronized long published() {
+        return published;
+    }
+
+    // The error that stopped the follower, or null while it is running or was closed normally.
+    public IOException failure() {
+        return failure;
+    }
+
+    // Stops the follower, if any. An interrupt while waiting for it is passed on to the caller's thread.
+    @Override
+    public void close() {
+        Thread thread;
+        synchronized (this) {
+            thread = follower;
+        }
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static class Reading {
+        final long timeMillis;
+        final int edge;
+        final double factor;
+
+        Reading(long timeMillis, int edge, double factor) {
+            this.timeMillis = timeMillis;
+            this.edge = edge;
+            this.factor = factor;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 import java.time.LocalTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class TrafficSimulator {
     
@@ -32,11 +34,16 @@ public class TrafficSimulator {
         }
     }
     
-    private static Map<String, Double> locationTrafficFactors = new HashMap<>();
-    private static Map<LocalTime, Double> timeTrafficFactors = new HashMap<>();
+    private static Map<String, Double> locationTrafficFactors = new ConcurrentHashMap<>();
+    private static Map<LocalTime, Double> timeTrafficFactors = new ConcurrentHashMap<>();
+    // Bumped whenever a factor changes, so cached routes computed under the old factors go stale.
+    private static final AtomicLong version = new AtomicLong();
+    // The maps above compiled for lookup; replaced whole, never modified.
+    private static volatile TrafficTable table;
     
     static {
         initializeTrafficData();
+        table = TrafficTable.build(locationTrafficFactors, hourlyTimeFactors());
     }
     
     private static void initializeTrafficData() {
@@ -62,10 +69,33 @@ public class TrafficSimulator {
         timeTrafficFactors.put(LocalTime.of(18, 0), 1.7);
     }
     
+    public static synchronized void setLocationTrafficFactor(String location, double factor) {
+        locationTrafficFactors.put(location, factor);
+        republish();
+    }
+    
+    public static synchronized void setTimeTrafficFactor(LocalTime time, double factor) {
+        timeTrafficFactors.put(LocalTime.of(time.getHour(), 0), factor);
+        republish();
+    }
+    
+    // The table is swapped before the version moves, so anyone who sees the new version reads the new table.
+    private static void republish() {
+        table = TrafficTable.build(locationTrafficFactors, hourlyTimeFactors());
+        version.incrementAndGet();
+    }
+    
+    public static TrafficTable table() {
+        return table;
+    }
+    
+    public static long version() {
+        return version.get();
+    }
+    
     public static double calculateTrafficFactor(String location, LocalTime time) {
-        double locationFactor = locationTrafficFactors.getOrDefault(location, 1.0);
-        double timeFactor = getTimeFactor(time);
-        return locationFactor * timeFactor;
+        TrafficTable current = table;
+        return current.factorAt(current.row(location), time.toSecondOfDay());
     }
     
     private static double getTimeFactor(LocalTime time) {
@@ -76,6 +106,40 @@ public class TrafficSimulator {
         return 0.8;
     }
     
+    // getTimeFactor sampled on the hour, index 0 = midnight. The traffic table interpolates linearly
+    // between these, so the factor ramps into each hour instead of jumping.
+    static double[] hourlyTimeFactors() {
+        double[] factors = new double[24];
+        for (int hour = 0; hour < 24; hour++) {
+            factors[hour] = getTimeFactor(LocalTime.of(hour, 0));
+        }
+        return factors;
+    }
+    
+    // Best departures between 08:00 and 18:00 from one time-dependent profile search, so traffic can
+    // change the route for each departure as well as its time.
+    public static List<TimeBasedRoute> findOptimalDepartureTimes(Graph graph, Nodes start, Nodes end) {
+        TimeDependentSearch.Profile profile = TimeDependentSearch.profile(graph, start, end);
+        List<TimeBasedRoute> routes = new ArrayList<>();
+        for (int i = 0; i < profile.size(); i++) {
+            PathResult path = profile.path(i);
+            if (!path.isFound()) {
+                continue;
+            }
+            TimeBasedRoute route = new TimeBasedRoute(path.names(), path.totalDistance,
+                    path.totalDistance / TimeDependentSearch.WALKING_SPEED);
+            route.trafficAdjustedTime = profile.travelSeconds(i);
+            route.recommendedTime = "Leave at " + profile.departure(i);
+            routes.add(route);
+        }
+        
+        routes.sort((r1, r2) -> Double.compare(r1.trafficAdjustedTime, r2.trafficAdjustedTime));
+        return routes.subList(0, Math.min(3, routes.size()));
+    }
+    
+    // Rescales a fixed path by the mean factor along it; the route itself never reacts to traffic.
+    // Use RouteOptimizer.optimizeForDeparture instead.
+    @Deprecated
     public static TimeBasedRoute optimizeForTime(List<String> path, double distance, double baseTime, LocalTime departureTime) {
         TimeBasedRoute route = new TimeBasedRoute(path, distance, baseTime);
         
@@ -103,6 +167,8 @@ public class TrafficSimulator {
         }
     }
     
+    // Use findOptimalDepartureTimes(Graph, Nodes, Nodes), which searches instead of rescaling a fixed path.
+    @Deprecated
     public static List<TimeBasedRoute> findOptimalDepartureTimes(List<String> path, double distance, double baseTime) {
         List<TimeBasedRoute> routes = new ArrayList<>();
         
@@ -0,0 +1,77 @@
+import java.util.*;
+
+// Traffic factors compiled into one dense array: a row per known location, plus a default row for
+// everywhere else, and a column per five-minute bucket of the day. Buckets sample the hourly factors
+// interpolated linearly, and lookups interpolate between buckets, so the factor is continuous in time.
+// Tables are immutable; TrafficSimulator publishes a fresh one whenever a factor changes.
+public class TrafficTable {
+    public static final int BUCKET_MINUTES = 5;
+    public static final int BUCKETS = 24 * 60 / BUCKET_MINUTES;
+    static final int DEFAULT_ROW = 0;
+
+    private static final int BUCKET_SECONDS = BUCKET_MINUTES * 60;
+    private static final int SECONDS_PER_DAY = 24 * 3600;
+
+    private final Map<String, Integer> rows;
+    // [row * BUCKETS + bucket]
+    private final double[] factors;
+
+    private TrafficTable(Map<String, Integer> rows, double[] factors) {
+        this.rows = rows;
+        this.factors = factors;
+    }
+
+    // hourlyFactors[h] is the time factor at h:00; locations without an entry use a factor of 1.
+    static TrafficTable build(Map<String, Double> locationFactors, double[] hourlyFactors) {
+        Map<String, Integer> rows = new HashMap<>();
+        List<Double> rowFactors = new ArrayList<>();
+        rowFactors.add(1.0);
+        for (Map.Entry<String, Double> location : locationFactors.entrySet()) {
+            rows.put(location.getKey(), rowFactors.size());
+            rowFactors.add(location.getValue());
+        }
+
+        double[] timeFactors = new double[BUCKETS];
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            double hours = bucket * BUCKET_MINUTES / 60.0;
+            int hour = (int) hours;
+            double fraction = hours - hour;
+            timeFactors[bucket] = hourlyFactors[hour] * (1 - fraction) + hourlyFactors[(hour + 1) % 24] * fraction;
+        }
+
+        double[] factors = new double[rowFactors.size() * BUCKETS];
+        for (int row = 0; row < rowFactors.size(); row++) {
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                factors[row * BUCKETS + bucket] = rowFactors.get(row) * timeFactors[bucket];
+            }
+        }
+        return new TrafficTable(rows, factors);
+    }
+
+    public int row(String location) {
+        return rows.getOrDefault(location, DEFAULT_ROW);
+    }
+
+    // Row of each node of the graph, looked up once so searches index the table by node id.
+    public int[] rows(CompactGraph graph) {
+        int[] nodeRows = new int[graph.size()];
+        for (int v = 0; v < nodeRows.length; v++) {
+            nodeRows[v] = row(graph.name(v));
+        }
+        return nodeRows;
+    }
+
+    public double factor(int row, int bucket) {
+        return factors[row * BUCKETS + bucket];
+    }
+
+    // Factor at an absolute time in seconds, wrapping past midnight.
+    public double factorAt(int row, double seconds) {
+        double secondOfDay = seconds % SECONDS_PER_DAY;
+        int bucket = (int) (secondOfDay / BUCKET_SECONDS);
+        double fraction = secondOfDay / BUCKET_SECONDS - bucket;
+        int base = row * BUCKETS;
+        int next = bucket + 1 == BUCKETS ? 0 : bucket + 1;
+        return factors[base + bucket] * (1 - fraction) + factors[base + next] * fraction;
+    }
+}
@@ -38,13 +38,16 @@ public class WeatherIntegration {
         }
     }
     
-    private static Map<String, WeatherCondition> campusWeather = new HashMap<>();
+    // The current weather state. Never modified in place: a change publishes a new map, so weight
+    // overlays can tell by identity which state they were built for.
+    private static volatile Map<String, WeatherCondition> campusWeather;
     
     static {
         initializeWeatherData();
     }
     
     private static void initializeWeatherData() {
+        Map<String, WeatherCondition> campusWeather = new HashMap<>();
         campusWeather.put("Main Gate", new WeatherCondition("Sunny", 28.0, 65.0, 5.0, false, 10.0));
         campusWeather.put("Balme Library", new WeatherCondition("Partly Cloudy", 26.0, 70.0, 3.0, false, 8.0));
         campusWeather.put("Engineering School", new WeatherCondition("Sunny", 29.0, 60.0, 4.0, false, 10.0));
@@ -53,10 +56,30 @@ public class WeatherIntegration {
         campusWeather.put("Night Market", new WeatherCondition("Rainy", 24.0, 80.0, 8.0, true, 4.0));
         campusWeather.put("Sarbah Park", new WeatherCondition("Partly Cloudy", 26.0, 68.0, 4.0, false, 7.0));
         campusWeather.put("Banking Square", new WeatherCondition("Sunny", 28.0, 63.0, 3.0, false, 9.0));
+        WeatherIntegration.campusWeather = Collections.unmodifiableMap(campusWeather);
+    }
+    
+    public static Map<String, WeatherCondition> conditions() {
+        return campusWeather;
+    }
+    
+    public static synchronized void setWeather(String location, WeatherCondition weather) {
+        Map<String, WeatherCondition> updated = new HashMap<>(campusWeather);
+        updated.put(location, weather);
+        campusWeather = Collections.unmodifiableMap(updated);
+    }
+    
+    // Replaces the whole weather state in one step, e.g. with one prepared for an incoming storm.
+    public static synchronized void setWeather(Map<String, WeatherCondition> conditions) {
+        campusWeather = Collections.unmodifiableMap(new HashMap<>(conditions));
     }
     
     public static double calculateWeatherFactor(String location) {
-        WeatherCondition weather = campusWeather.get(location);
+        return weatherFactor(campusWeather.get(location));
+    }
+    
+    // Slowdown for walking in these conditions; 1.0 for a location without a report.
+    public static double weatherFactor(WeatherCondition weather) {
         if (weather == null) {
             return 1.0;
         }
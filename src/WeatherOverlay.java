@@ -0,0 +1,68 @@
+import java.util.*;
+
+// Weather folded into edge weights. Every edge costs its base weight times the mean weather factor of
+// its two ends, so Dijkstra and A* on graph() steer around rain, fog and wind instead of only slowing
+// the shortest route afterwards. The weights are computed once per weather state; the overlay graph
+// shares the base graph's structure, so switching weather swaps one weight array, not the graph.
+public class WeatherOverlay {
+    private final CompactGraph base;
+    private final Map<String, WeatherIntegration.WeatherCondition> conditions;
+    // Per edge, indexed like the base weights.
+    private final double[] multipliers;
+    private final CompactGraph graph;
+
+    private WeatherOverlay(CompactGraph base, Map<String, WeatherIntegration.WeatherCondition> conditions,
+                           double[] multipliers, CompactGraph graph) {
+        this.base = base;
+        this.conditions = conditions;
+        this.multipliers = multipliers;
+        this.graph = graph;
+    }
+
+    // Base weights must be plain distances; a graph from withWeights (traffic, another overlay) is rejected.
+    public static WeatherOverlay build(CompactGraph base, Map<String, WeatherIntegration.WeatherCondition> conditions) {
+        if (!base.hasPlainWeights()) {
+            throw new IllegalArgumentException("weather overlay needs a graph with plain distance weights");
+        }
+        double[] nodeFactors = new double[base.size()];
+        for (int v = 0; v < nodeFactors.length; v++) {
+            nodeFactors[v] = WeatherIntegration.weatherFactor(conditions.get(base.name(v)));
+        }
+
+        double[] multipliers = new double[base.edgeCount()];
+        double[] weights = new double[multipliers.length];
+        for (int v = 0; v < nodeFactors.length; v++) {
+            for (int e = base.offsets[v]; e < base.offsets[v + 1]; e++) {
+                multipliers[e] = (nodeFactors[v] + nodeFactors[base.targets[e]]) / 2;
+                weights[e] = base.weights[e] * multipliers[e];
+            }
+        }
+        return new WeatherOverlay(base, conditions, multipliers, base.withWeights(weights));
+    }
+
+    // Weather state this overlay was built for.
+    public Map<String, WeatherIntegration.WeatherCondition> conditions() {
+        return conditions;
+    }
+
+    public CompactGraph graph() {
+        return graph;
+    }
+
+    public double multiplier(int edge) {
+        return multipliers[edge];
+    }
+
+    // A path found on graph() with its legs and total in metres, as on the base graph.
+    public PathResult inMetres(PathResult weighted) {
+        if (!weighted.isFound()) {
+            return weighted;
+        }
+        PathResult legs = PathResult.of(base, weighted.nodeIds, 0, weighted.nodesExplored);
+        double metres = 0;
+        for (double leg : legs.legDistances) {
+            metres += leg;
+        }
+        return new PathResult(base, weighted.nodeIds, legs.legDistances, metres, weighted.nodesExplored);
+    }
+}